@@ -0,0 +1,289 @@
+package org.analysis;
+
+import org.analysis.clustering.ClusteringEngine;
+import org.analysis.clustering.CouplingMatrix;
+import org.analysis.clustering.ModuleExtractor;
+import org.analysis.parsing.SourceParser;
+import org.analysis.parsing.SpoonSourceParser;
+import org.analysis.processing.GraphExporter;
+import org.analysis.processing.ResultPrinter;
+import org.analysis.processing.StatisticsService;
+import org.analysis.processing.model.CallGraph;
+import org.analysis.processing.model.ClassCouplingGraph;
+import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.SymbolTable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Point d'entrée unique, sans interface graphique : une seule analyse (un ProjectStats, un graphe
+ * d'appels, une matrice de couplage construite au besoin) partagée par tous les rapports demandés.
+ *
+ * Usage : AnalysisCli [dossier] [rapports...] [option=valeur...]
+ *   rapports : metrics | callgraph | coupling | modules (défaut : tous, dans cet ordre)
+ *   engine=jdt|spoon     analyseur (défaut jdt ; metrics n'existe qu'avec jdt)
+ *   prefix=org.x         package à analyser (défaut : tout)
+ *   keep=a.B,a.C         classes retenues pour callgraph/coupling (défaut : toutes celles du préfixe)
+ *   x=3                  seuil "classes avec plus de X méthodes" (metrics)
+ *   weight=pairs|sites   poids du couplage (défaut pairs)
+ *   cp=0.20              seuil CP des modules ; liste ou plage = balayage (voir ModulesAppMain)
+ *   cluster=dense        moteur de clustering (voir ClusteringEngine)
+ *   threads=N            threads du clustering (défaut : nombre de processeurs)
+ *   cycles               groupes imposés = cycles de dépendances entre classes
+ *   out=dossier          un fichier par rapport (metrics.txt...) au lieu de la console
+ *   export=dot,mtx...    exports en flux (voir GraphExporter) dans out (défaut : dossier courant) :
+ *                        callgraph.<ext> et coupling.<ext> pour ces rapports, matrix.mtx pour modules
+ */
+public class AnalysisCli {
+
+    private static final List<String> REPORTS = List.of("metrics", "callgraph", "coupling", "modules");
+
+    /** Arguments lus une fois. */
+    static final class Options {
+        Path root = Path.of("src/main/java");
+        final Set<String> reports = new LinkedHashSet<>();
+        final Map<String, String> values = new HashMap<>();
+        boolean cycles = false;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            boolean rootSet = false;
+            for (String a : args) {
+                int eq = a.indexOf('=');
+                if (eq > 0) {
+                    o.values.put(a.substring(0, eq), a.substring(eq + 1));
+                } else if (REPORTS.contains(a)) {
+                    o.reports.add(a);
+                } else if (a.equals("cycles")) {
+                    o.cycles = true;
+                } else if (!rootSet) {
+                    o.root = Path.of(a);
+                    rootSet = true;
+                } else {
+                    throw new IllegalArgumentException("argument inconnu : " + a);
+                }
+            }
+            if (o.reports.isEmpty()) o.reports.addAll(REPORTS);
+            // ordre fixe, quel que soit l'ordre des arguments
+            List<String> ordered = new ArrayList<>(REPORTS);
+            ordered.retainAll(o.reports);
+            o.reports.clear();
+            o.reports.addAll(ordered);
+            return o;
+        }
+
+        String get(String key, String def) { return values.getOrDefault(key, def); }
+    }
+
+    public static void main(String[] args) {
+        try {
+            run(Options.parse(args));
+        } catch (Exception e) {
+            System.err.println("[ERREUR] " + e.getClass().getSimpleName() + " : " + e.getMessage());
+            e.printStackTrace(System.err);
+            System.err.println("\nUsage: AnalysisCli [dossier] [metrics|callgraph|coupling|modules...] "
+                    + "[engine=jdt|spoon] [prefix=...] [keep=...] [x=3] [weight=pairs|sites] "
+                    + "[cp=0.20] [cluster=dense] [threads=N] [cycles] [out=dossier] [export=dot|graphml|jsonl|mtx]");
+            System.exit(1);
+        }
+    }
+
+    static void run(Options o) throws IOException {
+        String engine = o.get("engine", "jdt");
+        String prefix = o.get("prefix", "");
+        if (!engine.equals("jdt") && !engine.equals("spoon")) throw new IllegalArgumentException("engine : jdt ou spoon");
+
+        // 1) une seule analyse pour tous les rapports
+        ProjectStats stats = engine.equals("spoon")
+                ? new SpoonSourceParser().parseAll(o.root, prefix)
+                : new SourceParser().parseAll(o.root, prefix);
+
+        CouplingMatrix cm = null; // partagée par coupling et modules
+        boolean callSites = o.get("weight", "pairs").equals("sites");
+        String out = o.values.get("out");
+        if (out != null) Files.createDirectories(Path.of(out));
+
+        for (String report : o.reports) {
+            try (PrintWriter w = open(out, report)) {
+                switch (report) {
+                    case "metrics" -> metrics(stats, engine, Integer.parseInt(o.get("x", "3")), w);
+                    case "callgraph" -> callGraph(stats, prefix, keep(o), w);
+                    case "coupling" -> coupling(stats, prefix, keep(o), callSites, w);
+                    case "modules" -> {
+                        if (cm == null) cm = CouplingMatrix.fromCallGraph(stats.callGraph, prefix, callSites);
+                        modules(stats, cm, o, w);
+                    }
+                    default -> throw new IllegalStateException(report);
+                }
+            }
+        }
+        if (o.values.containsKey("export")) export(stats, cm, o, prefix, callSites);
+    }
+
+    /** Exports en flux : un Writer tamponné par fichier, rien n'est accumulé en mémoire. */
+    private static void export(ProjectStats stats, CouplingMatrix cm, Options o, String prefix, boolean callSites)
+            throws IOException {
+        Path dir = Path.of(o.get("out", "."));
+        Files.createDirectories(dir);
+        SymbolTable sym = stats.symbols;
+        Set<String> keep = keep(o);
+        IntPredicate acceptClass = cls -> accept(sym, cls, prefix, keep);
+        for (String name : o.get("export", "").split(",")) {
+            GraphExporter.Format format = GraphExporter.Format.of(name.trim());
+            if (o.reports.contains("callgraph")) {
+                try (Writer w = GraphExporter.open(dir.resolve("callgraph." + format.extension))) {
+                    GraphExporter.writeCallGraph(stats.callGraph, acceptClass, format, w);
+                }
+            }
+            if (o.reports.contains("coupling")) {
+                try (Writer w = GraphExporter.open(dir.resolve("coupling." + format.extension))) {
+                    GraphExporter.writeCouplingGraph(stats.callGraph, acceptClass, callSites, format, w);
+                }
+            }
+        }
+        if (cm != null) {
+            try (Writer w = GraphExporter.open(dir.resolve("matrix.mtx"))) {
+                cm.writeMatrixMarket(w);
+            }
+        }
+    }
+
+    /** Fichier <out>/<rapport>.txt, ou la console (jamais fermée) avec un titre de section. */
+    private static PrintWriter open(String out, String report) throws IOException {
+        if (out == null) {
+            PrintWriter console = new PrintWriter(new OutputStreamWriter(System.out)) {
+                @Override public void close() { flush(); }
+            };
+            console.println("\n##### " + report + " #####");
+            return console;
+        }
+        Path file = Path.of(out, report + ".txt");
+        return new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> keep(Options o) {
+        String k = o.values.get("keep");
+        if (k == null || k.isBlank()) return Set.of();
+        Set<String> fqns = new HashSet<>();
+        for (String s : k.split(",")) fqns.add(s.trim());
+        return fqns;
+    }
+
+    /** Classe retenue : dans le préfixe et, si keep est donné, dans keep. */
+    private static boolean accept(SymbolTable sym, int cls, String prefix, Set<String> keep) {
+        String fqn = sym.classFqn(cls);
+        return (prefix.isBlank() || fqn.startsWith(prefix)) && (keep.isEmpty() || keep.contains(fqn));
+    }
+
+    /* ---------- rapports ---------- */
+
+    private static void metrics(ProjectStats stats, String engine, int x, PrintWriter w) {
+        if (!engine.equals("jdt")) {
+            w.println("(métriques disponibles uniquement avec engine=jdt : l'analyse Spoon ne remplit que le graphe d'appels)");
+            return;
+        }
+        StatisticsService.Answers answers = new StatisticsService().compute(stats, x);
+        ResultPrinter.print(answers, w);
+    }
+
+    /** Appels inter-classes, groupés par classe appelante (ordre d'apparition). */
+    private static void callGraph(ProjectStats stats, String prefix, Set<String> keep, PrintWriter w) {
+        CallGraph g = stats.callGraph;
+        SymbolTable sym = stats.symbols;
+        Map<Integer, List<Integer>> byClass = new LinkedHashMap<>(); // classe -> nœuds appelants
+        for (int a = 0; a < g.nodeCount(); a++) {
+            int cls = sym.methodClass(g.methodAt(a));
+            if (accept(sym, cls, prefix, keep)) byClass.computeIfAbsent(cls, k -> new ArrayList<>()).add(a);
+        }
+
+        w.println("=== Graphe d'appels (inter-classes) ===");
+        int edges = 0;
+        for (var e : byClass.entrySet()) {
+            int cls = e.getKey();
+            boolean header = false;
+            for (int a : e.getValue()) {
+                TreeSet<String> targets = new TreeSet<>();
+                for (int k = 0; k < g.outDegree(a); k++) {
+                    int callee = g.methodAt(g.target(a, k));
+                    int calleeCls = sym.methodClass(callee);
+                    if (calleeCls == cls || !accept(sym, calleeCls, prefix, keep)) continue;
+                    targets.add(label(sym, callee));
+                }
+                if (targets.isEmpty()) continue;
+                if (!header) {
+                    w.println(sym.classFqn(cls));
+                    header = true;
+                }
+                w.println("  " + label(sym, g.methodAt(a)) + " -> " + String.join(", ", targets));
+                edges += targets.size();
+            }
+        }
+        w.println("Arêtes inter-classes : " + edges);
+    }
+
+    /** "Classe#meth(A,B)" : signature sans le package. */
+    private static String label(SymbolTable sym, int method) {
+        String sig = sym.signature(method);
+        String pkg = sym.packageName(sym.classPackage(sym.methodClass(method)));
+        return pkg.isEmpty() ? sig : sig.substring(pkg.length() + 1);
+    }
+
+    /** Couplage orienté A -> B, poids décroissants (ordre d'apparition à égalité). */
+    private static void coupling(ProjectStats stats, String prefix, Set<String> keep, boolean callSites, PrintWriter w) {
+        ClassCouplingGraph cg = stats.callGraph.classGraph();
+        SymbolTable sym = stats.symbols;
+        List<Integer> edges = new ArrayList<>();
+        long total = 0;
+        for (int e = 0; e < cg.edgeCount(); e++) {
+            if (!accept(sym, cg.source(e), prefix, keep) || !accept(sym, cg.target(e), prefix, keep)) continue;
+            edges.add(e);
+            total += cg.weight(e, callSites);
+        }
+        edges.sort((a, b) -> Integer.compare(cg.weight(b, callSites), cg.weight(a, callSites)));
+
+        w.println("=== Graphe de couplage (orienté) ===");
+        w.println("Total des relations inter-classes T = " + total + (callSites ? " (sites d'appel)" : ""));
+        for (int e : edges) {
+            int weight = cg.weight(e, callSites);
+            double c = (total == 0) ? 0d : weight / (double) total;
+            w.println(String.format(Locale.US, " %s -> %s : w=%d  (c=%.3f)",
+                    sym.simpleName(cg.source(e)), sym.simpleName(cg.target(e)), weight, c));
+        }
+    }
+
+    private static void modules(ProjectStats stats, CouplingMatrix cm, Options o, PrintWriter w) {
+        double[] cps = ModuleExtractor.thresholds(o.get("cp", "0.20"));
+        String engine = o.get("cluster", "dense");
+        int threads = Integer.parseInt(o.get("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        List<String> labels = new ArrayList<>(cm.classes);
+        labels.sort(Comparator.naturalOrder());
+        w.println("=== Modules (" + engine + ") ===");
+        w.println("Classes : " + labels.size());
+        if (labels.isEmpty()) return;
+        List<List<String>> seeds = o.cycles ? cm.cycleSeeds(stats.callGraph) : List.of();
+        if (o.cycles) CouplingMatrix.cycleReport(stats.callGraph, o.get("prefix", ""), seeds).forEach(w::println);
+
+        ClusteringEngine.ModuleRun run = ClusteringEngine.modules(engine, threads, labels, cm, seeds, cps);
+        if (run.summary != null) w.println(run.summary);
+        if (run.sweepTable != null) {
+            run.sweepTable.forEach(w::println);
+            return;
+        }
+        w.println("CP = " + cps[0] + " ; limite modules = M/2 = " + (labels.size() / 2));
+        printModules(run.modules, w);
+    }
+
+    private static void printModules(ModuleExtractor.Modules modules, PrintWriter w) {
+        int idx = 1;
+        for (List<String> g : modules.groups) {
+            w.println(String.format(Locale.US, "Module %d (|C|=%d, mean=%.3f): %s",
+                    idx++, g.size(), modules.meanCoupling.get(g), String.join(", ", g)));
+        }
+    }
+}
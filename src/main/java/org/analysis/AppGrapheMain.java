@@ -1,7 +1,9 @@
 package org.analysis;
 
 import org.analysis.parsing.SourceParser;
+import org.analysis.processing.model.CallGraph;
 import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.SymbolTable;
 
 import java.nio.file.Path;
 import java.util.*;
@@ -23,21 +25,24 @@ public class AppGrapheMain {
         ProjectStats stats = new SourceParser().parseAll(root, pkgPrefix);
 
         // ---------- impression console groupée comme tu l'as eue ----------
-        Map<String, Set<String>> g = stats.callGraph.asMap();
+        CallGraph g = stats.callGraph;
+        SymbolTable sym = stats.symbols;
         java.util.function.Function<String, String> clsOf = s -> {
             int i = s.indexOf('#'); return i < 0 ? s : s.substring(0, i);
         };
 
+        // filtrage en ids ; les signatures ne sont lues que pour les arêtes retenues
         Map<String, Set<String>> inter = new LinkedHashMap<>();
-        for (var e : g.entrySet()) {
-            String caller = e.getKey();
-            String callerClass = clsOf.apply(caller);
-            if (!KEEP.contains(callerClass)) continue;
-            for (String callee : e.getValue()) {
-                String calleeClass = clsOf.apply(callee);
-                if (!KEEP.contains(calleeClass)) continue;
-                if (callerClass.equals(calleeClass)) continue; // inter-classes only
-                inter.computeIfAbsent(caller, k -> new LinkedHashSet<>()).add(callee);
+        for (int a = 0; a < g.nodeCount(); a++) {
+            int caller = g.methodAt(a);
+            int callerClass = sym.methodClass(caller);
+            if (!KEEP.contains(sym.classFqn(callerClass))) continue;
+            for (int k = 0; k < g.outDegree(a); k++) {
+                int callee = g.methodAt(g.target(a, k));
+                int calleeClass = sym.methodClass(callee);
+                if (!KEEP.contains(sym.classFqn(calleeClass))) continue;
+                if (callerClass == calleeClass) continue; // inter-classes only
+                inter.computeIfAbsent(sym.signature(caller), x -> new LinkedHashSet<>()).add(sym.signature(callee));
             }
         }
 
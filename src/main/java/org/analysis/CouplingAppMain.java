@@ -1,7 +1,10 @@
 package org.analysis;
 
 import org.analysis.parsing.SourceParser;
+import org.analysis.processing.model.ClassCouplingGraph;
+import org.analysis.processing.model.LongIntHashMap;
 import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.SymbolTable;
 import org.analysis.gui.CouplingGraphSwing;               // UI
 import org.analysis.gui.CouplingGraphSwing.EdgeInfo;     // Info d’arête (poids + ratio)
 
@@ -23,64 +26,55 @@ public class CouplingAppMain {
     public static void main(String[] args) throws Exception {
         Path root = Path.of(args.length > 0 ? args[0] : "src/main/java");
         String pkgPrefix = "org.analysis.codesource";
+        // "sites" : poids = nombre de sites d'appel ; par défaut nombre de paires de méthodes distinctes
+        boolean callSites = args.length > 1 && args[1].equals("sites");
 
         // 1) Parse et graphe d'appels méthode->méthode
         ProjectStats stats = new SourceParser().parseAll(root, pkgPrefix);
-        Map<String, Set<String>> g = stats.callGraph.asMap();
+        ClassCouplingGraph cg = stats.callGraph.classGraph(); // agrégé pendant le parsing
+        SymbolTable sym = stats.symbols;
 
-        // 2) Agrégation classe->classe (inter-classes)
-        Map<String, Integer> edgeWeights = new LinkedHashMap<>(); // "A->B" ou "A|B"
+        // arêtes de classes retenues, clé = paire d'ids de classe (A->B, ou A|B ordonnée par FQN)
+        LongIntHashMap edgeWeights = new LongIntHashMap();
         int total = 0;
 
-        for (var e : g.entrySet()) {
-            String caller = e.getKey();                 // ex: org.x.Y#foo
-            String callerClass = clsOf(caller);
-            if (!KEEP.contains(callerClass)) continue;
+        for (int e = 0; e < cg.edgeCount(); e++) {
+            int callerCls = cg.source(e), calleeCls = cg.target(e); // inter-classes uniquement
+            if (!KEEP.contains(sym.classFqn(callerCls)) || !KEEP.contains(sym.classFqn(calleeCls))) continue;
 
-            for (String callee : e.getValue()) {
-                String calleeClass = clsOf(callee);
-                if (!KEEP.contains(calleeClass)) continue;
-                if (callerClass.equals(calleeClass)) continue; // on ignore intra-classes
+            long key = UNDIRECTED
+                    ? undirectedKey(sym, callerCls, calleeCls)
+                    : LongIntHashMap.pack(callerCls, calleeCls);
 
-                String key = UNDIRECTED
-                        ? undirectedKey(callerClass, calleeClass)
-                        : callerClass + "->" + calleeClass;
-
-                edgeWeights.merge(key, 1, Integer::sum);
-                total++;
-            }
+            int w = cg.weight(e, callSites);
+            edgeWeights.addTo(key, w);
+            total += w;
         }
 
-        // ===== copie finale pour les lambdas =====
         final int T = total;
 
         // 3) Impression console (poids + couplage)
         System.out.println("=== Graphe de couplage (" + (UNDIRECTED ? "non orienté" : "orienté") + ") ===");
-        System.out.println("Total des relations inter-classes T = " + T);
+        System.out.println("Total des relations inter-classes T = " + T + (callSites ? " (sites d'appel)" : ""));
 
-        edgeWeights.entrySet().stream()
-                .sorted((a,b) -> Integer.compare(b.getValue(), a.getValue()))
-                .forEach(e -> {
-                    double c = (T == 0) ? 0d : (e.getValue() / (double) T);
-                    String nice = String.format(Locale.US, "%.3f", c);
-                    System.out.println(" " + labelSimple(e.getKey()) + " : w=" + e.getValue() + "  (c=" + nice + ")");
-                });
+        for (int i : byWeightDesc(edgeWeights)) {
+            int w = edgeWeights.valueAt(i);
+            double c = (T == 0) ? 0d : (w / (double) T);
+            String nice = String.format(Locale.US, "%.3f", c);
+            System.out.println(" " + labelSimple(sym, edgeWeights.keyAt(i)) + " : w=" + w + "  (c=" + nice + ")");
+        }
 
         // 4) Données pour l’UI
         Map<String, Map<String, EdgeInfo>> ui = new LinkedHashMap<>();
-        for (var e : edgeWeights.entrySet()) {
-            int w = e.getValue();
+        for (int i = 0; i < edgeWeights.size(); i++) {
+            int w = edgeWeights.valueAt(i);
             double c = (T == 0) ? 0d : (w / (double) T);
             EdgeInfo info = new EdgeInfo(w, c);
 
-            if (UNDIRECTED) {
-                String[] ab = e.getKey().split("\\|");
-                add(ui, simple(ab[0]), simple(ab[1]), info);
-                add(ui, simple(ab[1]), simple(ab[0]), info); // dessiner visuellement les 2 sens
-            } else {
-                String[] ab = e.getKey().split("->");
-                add(ui, simple(ab[0]), simple(ab[1]), info);
-            }
+            String A = sym.simpleName(LongIntHashMap.hi(edgeWeights.keyAt(i)));
+            String B = sym.simpleName(LongIntHashMap.lo(edgeWeights.keyAt(i)));
+            add(ui, A, B, info);
+            if (UNDIRECTED) add(ui, B, A, info); // dessiner visuellement les 2 sens
         }
 
         // 5) Fenêtre Swing
@@ -92,30 +86,21 @@ public class CouplingAppMain {
         ui.computeIfAbsent(b, k -> new LinkedHashMap<>()); // s'assurer du nœud cible
     }
 
-    private static String clsOf(String sig) {
-        int i = sig.indexOf('#');
-        String fqn = (i < 0) ? sig : sig.substring(0, i);
-        return fqn;
+    /** Index des entrées par poids décroissant (tri stable : ordre d'insertion à égalité). */
+    private static Integer[] byWeightDesc(LongIntHashMap w) {
+        Integer[] order = new Integer[w.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(w.valueAt(b), w.valueAt(a)));
+        return order;
     }
 
-    private static String simple(String fqn) {
-        int d = fqn.lastIndexOf('.');
-        return (d >= 0) ? fqn.substring(d + 1) : fqn;
+    private static long undirectedKey(SymbolTable sym, int a, int b) {
+        int cmp = sym.classFqn(a).compareTo(sym.classFqn(b));
+        return (cmp <= 0) ? LongIntHashMap.pack(a, b) : LongIntHashMap.pack(b, a);
     }
 
-    private static String undirectedKey(String a, String b) {
-        int cmp = a.compareTo(b);
-        return (cmp <= 0) ? (a + "|" + b) : (b + "|" + a);
-    }
-
-    private static String labelSimple(String key) {
-        if (key.contains("->")) {
-            String[] ab = key.split("->");
-            return simple(ab[0]) + " -> " + simple(ab[1]);
-        } else if (key.contains("|")) {
-            String[] ab = key.split("\\|");
-            return simple(ab[0]) + " — " + simple(ab[1]);
-        }
-        return key;
+    private static String labelSimple(SymbolTable sym, long key) {
+        String a = sym.simpleName(LongIntHashMap.hi(key)), b = sym.simpleName(LongIntHashMap.lo(key));
+        return UNDIRECTED ? a + " — " + b : a + " -> " + b;
     }
 }
@@ -1,7 +1,10 @@
 package org.analysis;
 
 import org.analysis.parsing.SpoonSourceParser;
+import org.analysis.processing.model.ClassCouplingGraph;
+import org.analysis.processing.model.LongIntHashMap;
 import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.SymbolTable;
 import org.analysis.gui.CouplingGraphSwing;
 import org.analysis.gui.CouplingGraphSwing.EdgeInfo;
 
@@ -23,60 +26,50 @@ public class CouplingAppMainSpoon {
     public static void main(String[] args) throws Exception {
         Path root = Path.of(args.length > 0 ? args[0] : "src/main/java");
         String pkgPrefix = (args.length > 1) ? args[1] : "org.analysis.codesource";
+        boolean callSites = args.length > 2 && args[2].equals("sites"); // poids = sites d'appel (défaut : paires distinctes)
 
         ProjectStats stats = new SpoonSourceParser().parseAll(root, pkgPrefix);
-        Map<String, Set<String>> call = stats.callGraph.asMap();
+        ClassCouplingGraph cg = stats.callGraph.classGraph(); // agrégé pendant le parsing
+        SymbolTable sym = stats.symbols;
 
-        // agrégation classe->classe
-        Map<String, Integer> edgeW = new LinkedHashMap<>(); // "A->B" ou "A|B"
+        // arêtes de classes retenues, clé = paire d'ids de classe (A->B, ou A|B ordonnée par FQN)
+        LongIntHashMap edgeW = new LongIntHashMap();
         int total = 0;
 
-        for (var e : call.entrySet()) {
-            String callerSig = e.getKey();         // fqcn#method
-            String callerCls = clsOf(callerSig);   // fqcn
-            if (!KEEP_FQCN.contains(callerCls)) continue;
+        for (int e = 0; e < cg.edgeCount(); e++) {
+            int callerCls = cg.source(e), calleeCls = cg.target(e); // inter-classes uniquement
+            if (!KEEP_FQCN.contains(sym.classFqn(callerCls)) || !KEEP_FQCN.contains(sym.classFqn(calleeCls))) continue;
 
-            for (String calleeSig : e.getValue()) {
-                String calleeCls = clsOf(calleeSig);
-                if (!KEEP_FQCN.contains(calleeCls)) continue;
-                if (callerCls.equals(calleeCls)) continue; // ignore intra-classe
+            long key = UNDIRECTED
+                    ? undirectedKey(sym, callerCls, calleeCls)
+                    : LongIntHashMap.pack(callerCls, calleeCls);
 
-                String key = UNDIRECTED
-                        ? undirectedKey(callerCls, calleeCls)
-                        : callerCls + "->" + calleeCls;
-
-                edgeW.merge(key, 1, Integer::sum);
-                total++;
-            }
+            int w = cg.weight(e, callSites);
+            edgeW.addTo(key, w);
+            total += w;
         }
 
         final int T = total;
 
         System.out.println("=== Couplage (Spoon) " + (UNDIRECTED ? "non orienté" : "orienté") + " ===");
-        System.out.println("T = " + T);
-        edgeW.entrySet().stream()
-                .sorted((a,b) -> Integer.compare(b.getValue(), a.getValue()))
-                .forEach(en -> {
-                    double c = (T == 0) ? 0d : (en.getValue() / (double) T);
-                    System.out.printf(Locale.US, " %s : w=%d  (c=%.3f)%n",
-                            labelSimple(en.getKey()), en.getValue(), c);
-                });
+        System.out.println("T = " + T + (callSites ? " (sites d'appel)" : ""));
+        for (int i : byWeightDesc(edgeW)) {
+            double c = (T == 0) ? 0d : (edgeW.valueAt(i) / (double) T);
+            System.out.printf(Locale.US, " %s : w=%d  (c=%.3f)%n",
+                    labelSimple(sym, edgeW.keyAt(i)), edgeW.valueAt(i), c);
+        }
 
         // données UI
         Map<String, Map<String, EdgeInfo>> ui = new LinkedHashMap<>();
-        for (var en : edgeW.entrySet()) {
-            int w = en.getValue();
+        for (int i = 0; i < edgeW.size(); i++) {
+            int w = edgeW.valueAt(i);
             double c = (T == 0) ? 0d : (w / (double) T);
             EdgeInfo info = new EdgeInfo(w, c);
 
-            if (UNDIRECTED) {
-                String[] ab = en.getKey().split("\\|");
-                add(ui, simple(ab[0]), simple(ab[1]), info);
-                add(ui, simple(ab[1]), simple(ab[0]), info);
-            } else {
-                String[] ab = en.getKey().split("->");
-                add(ui, simple(ab[0]), simple(ab[1]), info);
-            }
+            String A = sym.simpleName(LongIntHashMap.hi(edgeW.keyAt(i)));
+            String B = sym.simpleName(LongIntHashMap.lo(edgeW.keyAt(i)));
+            add(ui, A, B, info);
+            if (UNDIRECTED) add(ui, B, A, info);
         }
 
         CouplingGraphSwing.show(ui);
@@ -86,25 +79,17 @@ public class CouplingAppMainSpoon {
         ui.computeIfAbsent(a, k -> new LinkedHashMap<>()).put(b, info);
         ui.computeIfAbsent(b, k -> new LinkedHashMap<>());
     }
-    private static String clsOf(String sig) {
-        int i = sig.indexOf('#');
-        return (i < 0) ? sig : sig.substring(0, i);
+    private static Integer[] byWeightDesc(LongIntHashMap w) {
+        Integer[] order = new Integer[w.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(w.valueAt(b), w.valueAt(a))); // stable
+        return order;
     }
-    private static String simple(String fqn) {
-        int d = fqn.lastIndexOf('.');
-        return (d >= 0) ? fqn.substring(d + 1) : fqn;
+    private static long undirectedKey(SymbolTable sym, int a, int b) {
+        return (sym.classFqn(a).compareTo(sym.classFqn(b)) <= 0) ? LongIntHashMap.pack(a, b) : LongIntHashMap.pack(b, a);
     }
-    private static String undirectedKey(String a, String b) {
-        return (a.compareTo(b) <= 0) ? (a + "|" + b) : (b + "|" + a);
-    }
-    private static String labelSimple(String key) {
-        if (key.contains("->")) {
-            String[] ab = key.split("->");
-            return simple(ab[0]) + " -> " + simple(ab[1]);
-        } else if (key.contains("|")) {
-            String[] ab = key.split("\\|");
-            return simple(ab[0]) + " — " + simple(ab[1]);
-        }
-        return key;
+    private static String labelSimple(SymbolTable sym, long key) {
+        String a = sym.simpleName(LongIntHashMap.hi(key)), b = sym.simpleName(LongIntHashMap.lo(key));
+        return UNDIRECTED ? a + " — " + b : a + " -> " + b;
     }
 }
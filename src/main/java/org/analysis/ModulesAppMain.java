@@ -1,7 +1,8 @@
 package org.analysis;
 
 import org.analysis.clustering.ClusterNode;
-import org.analysis.clustering.HierarchicalClustering;
+import org.analysis.clustering.ClusteringEngine;
+import org.analysis.clustering.CouplingMatrix;
 import org.analysis.clustering.ModuleExtractor;
 import org.analysis.gui.DendrogramSwing;
 import org.analysis.parsing.SourceParser;
@@ -20,32 +21,49 @@ import java.util.*;
  * Args possibles :
  *   [0] rootDir (par défaut: src/main/java)
  *   [1] pkgPrefix (ex: org.analysis.codesource) - "" pour tout
- *   [2] CP (double, ex: 0.20)
+ *   [2] CP (double, ex: 0.20) ; liste "0.05,0.1,0.2" ou plage "0.05:0.5:0.05" = balayage
+ *       (tableau modules / cohésion par CP sur un seul dendrogramme)
+ *   [3] engine (défaut: dense) - voir ClusteringEngine :
+ *       dense | parallel | sparse | single | complete | average | weighted | ward | single-sparse | louvain
+ *       | packages[:inner[:maxGroup]] (packages puis classes par groupe)
+ *   [4] threads pour engine=parallel, louvain ou packages (défaut: nombre de processeurs)
+ *   [5] poids du couplage : pairs (défaut, paires de méthodes distinctes) | sites (sites d'appel)
+ *   [6] cycles : cycles de dépendances (classes, packages) affichés et pré-fusionnés avant clustering
  */
 public class ModulesAppMain {
 
     public static void main(String[] args) throws Exception {
         Path root = Path.of(args.length > 0 ? args[0] : "src/main/java");
         String pkgPrefix = (args.length > 1) ? args[1] : "org.analysis.codesource";
-        double CP = (args.length > 2) ? Double.parseDouble(args[2]) : 0.20;
+        double[] cps = ModuleExtractor.thresholds((args.length > 2) ? args[2] : "0.20");
+        double CP = cps[0];
+        String engine = (args.length > 3) ? args[3] : "dense";
+        int threads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        boolean callSites = args.length > 5 && args[5].equals("sites");
+        boolean cycles = args.length > 6 && args[6].equals("cycles");
 
         // 1) Parser + graphe d'appels
         ProjectStats stats = new SourceParser().parseAll(root, pkgPrefix);
-        Map<String, Set<String>> callGraph = stats.callGraph.asMap();
 
         // 2) Construire la matrice de couplage (symétrique) entre noms simples de classes
-        CouplingMatrix cm = CouplingMatrix.fromCallGraph(callGraph, pkgPrefix);
+        CouplingMatrix cm = CouplingMatrix.fromCallGraph(stats.callGraph, pkgPrefix, callSites);
 
         // 3) Clustering hierarchique
         List<String> labels = new ArrayList<>(cm.classes); // noms simples
         labels.sort(Comparator.naturalOrder());
 
-        HierarchicalClustering hc = new HierarchicalClustering();
-        ClusterNode rootDendro = hc.cluster(labels, cm::s);
-
-        // 4) Extraction de modules
-        ModuleExtractor extractor = new ModuleExtractor();
-        ModuleExtractor.Modules modules = extractor.extract(rootDendro, CP, cm::s);
+        List<List<String>> seeds = cycles ? cm.cycleSeeds(stats.callGraph) : List.of();
+        if (cycles) CouplingMatrix.cycleReport(stats.callGraph, pkgPrefix, seeds).forEach(System.out::println);
+        // 4) Clustering puis extraction de modules, ou balayage de CP sur un seul dendrogramme
+        ClusteringEngine.ModuleRun run = ClusteringEngine.modules(engine, threads, labels, cm, seeds, cps);
+        if (run.summary != null) System.out.println(run.summary);
+        ClusterNode rootDendro = run.root;
+        ModuleExtractor.Modules modules = run.modules;
+        if (run.sweepTable != null) {
+            run.sweepTable.forEach(System.out::println);
+            DendrogramSwing.show(rootDendro, run.sweepTable);
+            return;
+        }
 
         // 5) Impression console
         System.out.println("Classes (" + labels.size() + ") : " + labels);
@@ -65,74 +83,4 @@ public class ModulesAppMain {
         // 6) Dendrogramme + modules (fenêtre Swing)
         DendrogramSwing.show(rootDendro, rightPanel);
     }
-
-    /** Matrice de couplage symétrique basée sur le graphe d'appels. */
-    static class CouplingMatrix {
-        final Set<String> classes = new LinkedHashSet<>();                     // noms simples
-        final Map<String, Map<String, Double>> s = new HashMap<>();            // S(a,b)
-        final Map<String, String> simpleToFqn = new HashMap<>();
-
-        /** similarité entre noms simples (symétrique dans [0,1]). */
-        double s(String a, String b) {
-            if (a.equals(b)) return 0.0; // on ignore l'auto-couplage pour clustering
-            return s.getOrDefault(a, Map.of()).getOrDefault(b, 0.0);
-        }
-
-        /** Construit depuis le callGraph méthode->méthode agrégé classe->classe. */
-        static CouplingMatrix fromCallGraph(Map<String, Set<String>> callGraph, String includePrefix) {
-            CouplingMatrix cm = new CouplingMatrix();
-
-            // agrégation w(A->B)
-            Map<String, Map<String, Integer>> w = new HashMap<>();
-            int T = 0;
-
-            for (var e : callGraph.entrySet()) {
-                String caller = e.getKey();
-                String callerFqn = clsOf(caller);
-                if (!includePrefix.isBlank() && !callerFqn.startsWith(includePrefix)) continue;
-
-                for (String callee : e.getValue()) {
-                    String calleeFqn = clsOf(callee);
-                    if (!includePrefix.isBlank() && !calleeFqn.startsWith(includePrefix)) continue;
-                    if (callerFqn.equals(calleeFqn)) continue; // intra-classes ignoré
-
-                    String A = simple(callerFqn);
-                    String B = simple(calleeFqn);
-
-                    cm.classes.add(A); cm.classes.add(B);
-                    cm.simpleToFqn.putIfAbsent(A, callerFqn);
-                    cm.simpleToFqn.putIfAbsent(B, calleeFqn);
-
-                    w.computeIfAbsent(A, k -> new HashMap<>())
-                            .merge(B, 1, Integer::sum);
-                    T++;
-                }
-            }
-
-            // Similarité symétrique S(A,B) = (wAB + wBA) / T
-            for (String A : cm.classes) {
-                cm.s.put(A, new HashMap<>());
-            }
-            for (String A : cm.classes) {
-                for (String B : cm.classes) {
-                    if (A.equals(B)) continue;
-                    int wAB = w.getOrDefault(A, Map.of()).getOrDefault(B, 0);
-                    int wBA = w.getOrDefault(B, Map.of()).getOrDefault(A, 0);
-                    double sim = (T == 0) ? 0.0 : ((wAB + wBA) / (double) T);
-                    cm.s.get(A).put(B, sim);
-                    cm.s.get(B).put(A, sim);
-                }
-            }
-            return cm;
-        }
-
-        private static String clsOf(String sig) {
-            int i = sig.indexOf('#');
-            return (i < 0) ? sig : sig.substring(0, i);
-        }
-        private static String simple(String fqn) {
-            int d = fqn.lastIndexOf('.');
-            return (d >= 0) ? fqn.substring(d + 1) : fqn;
-        }
-    }
 }
@@ -4,7 +4,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-/** Nœud du dendrogramme (binaire). */
+/**
+ * Nœud du dendrogramme (binaire).
+ * Les moteurs de clustering produisent un {@link Dendrogram} compact dont ClusterNode est une vue :
+ * les items y sont alors des tranches partagées de l'ordre des feuilles (pas de copie par nœud).
+ */
 public class ClusterNode {
     public final ClusterNode left;
     public final ClusterNode right;
@@ -15,7 +19,7 @@ public class ClusterNode {
     public static ClusterNode leaf(String item) {
         List<String> it = new ArrayList<>();
         it.add(item);
-        return new ClusterNode(null, null, it, 0.0);
+        return new ClusterNode(null, null, Collections.unmodifiableList(it), 0.0);
     }
 
     /** Interne. */
@@ -23,13 +27,18 @@ public class ClusterNode {
         List<String> it = new ArrayList<>(a.items.size() + b.items.size());
         it.addAll(a.items);
         it.addAll(b.items);
-        return new ClusterNode(a, b, it, height);
+        return new ClusterNode(a, b, Collections.unmodifiableList(it), height);
+    }
+
+    /** Vue sur un nœud de Dendrogram : items déjà en lecture seule, partagés. */
+    static ClusterNode view(ClusterNode left, ClusterNode right, List<String> items, double height) {
+        return new ClusterNode(left, right, items, height);
     }
 
     private ClusterNode(ClusterNode left, ClusterNode right, List<String> items, double height) {
         this.left = left;
         this.right = right;
-        this.items = Collections.unmodifiableList(items);
+        this.items = items;
         this.height = height;
     }
 
@@ -0,0 +1,129 @@
+package org.analysis.clustering;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Choix du moteur de clustering par nom (arguments des points d'entrée) :
+ *  - dense    : average linkage historique (toutes les paires)
+ *  - parallel : idem, réparti sur un ForkJoinPool de 'threads' threads
+ *  - sparse   : average linkage sur les seules paires couplées (S > 0)
+ *  - single | complete | average | weighted | ward : linkage Lance–Williams (chaîne des plus proches voisins)
+ *  - single-sparse : lien simple par Kruskal sur les paires couplées
+ *  - louvain  : communautés par modularité (voir Louvain), dendrogramme des niveaux ;
+ *               les points d'entrée prennent alors directement ses modules
+ *  - packages[:inner[:maxGroup]] : deux niveaux, packages puis classes de chaque groupe de packages
+ *               avec le moteur inner (défaut dense), groupes en parallèle (voir TwoLevelClustering)
+ *
+ * Groupes imposés (seeds, ex : cycles de classes) : fusionnés à la hauteur 0 avant le clustering.
+ * dense/parallel/louvain démarrent directement des groupes ; les autres moteurs reçoivent S = 1 entre
+ * membres d'un même groupe, ce qui les fusionne en premier (exact pour single, complete et
+ * average, dont la distance entre groupes ne dépend pas des paires internes ; approché pour
+ * weighted et ward).
+ */
+public final class ClusteringEngine {
+
+    private ClusteringEngine() {}
+
+    /** Résultat commun aux points d'entrée : dendrogramme, puis modules (un CP) ou tableau de balayage (plusieurs CP). */
+    public static final class ModuleRun {
+        public final ClusterNode root;
+        public final ModuleExtractor.Modules modules; // null en balayage
+        public final List<String> sweepTable;         // null pour un seul CP
+        public final String summary;                  // louvain : niveaux et modularité, null sinon
+
+        ModuleRun(ClusterNode root, ModuleExtractor.Modules modules, List<String> sweepTable, String summary) {
+            this.root = root;
+            this.modules = modules;
+            this.sweepTable = sweepTable;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Dendrogramme puis modules, partagé par ModulesAppMain, ModulesAppMainSpoon et AnalysisCli.
+     * louvain : ses communautés sont les modules (CP et M/2 non utilisés) ; plusieurs CP : balayage
+     * sur le même dendrogramme, quel que soit le moteur.
+     */
+    public static ModuleRun modules(String engine, int threads, List<String> labels, CouplingMatrix cm,
+                                    List<? extends Collection<String>> seeds, double[] cps) {
+        ModuleExtractor extractor = new ModuleExtractor(engine.equals("parallel") ? threads : 1);
+        ClusterNode root;
+        ModuleExtractor.Modules modules = null;
+        String summary = null;
+        if (engine.equals("louvain")) {
+            Louvain.Result louvain = new Louvain(threads, 1.0).run(labels, cm.neighbours(), seeds);
+            root = louvain.root;
+            modules = louvain.modules;
+            summary = String.format(Locale.US, "Louvain : %d niveau(x), modularité Q = %.4f", louvain.levels, louvain.modularity);
+        } else {
+            root = run(engine, threads, labels, cm, seeds);
+        }
+        if (cps.length > 1) {
+            return new ModuleRun(root, null, ModuleExtractor.sweepTable(extractor.sweep(root, cps, cm::s)), summary);
+        }
+        if (modules == null) modules = extractor.extract(root, cps[0], cm::s);
+        return new ModuleRun(root, modules, null, summary);
+    }
+
+    public static ClusterNode run(String engine, int threads, List<String> labels, CouplingMatrix cm) {
+        return run(engine, threads, labels, cm, List.of());
+    }
+
+    public static ClusterNode run(String engine, int threads, List<String> labels, CouplingMatrix cm,
+                                  List<? extends Collection<String>> seeds) {
+        if (engine.startsWith("packages")) return twoLevel(engine, threads).cluster(labels, cm, seeds);
+        if (!seeds.isEmpty()) return runSeeded(engine, threads, labels, cm, seeds);
+        return switch (engine) {
+            case "dense" -> new HierarchicalClustering().cluster(labels, cm::s);
+            case "parallel" -> new HierarchicalClustering(threads).cluster(labels, cm::s);
+            case "sparse" -> new HierarchicalClustering().clusterSparse(labels, cm.neighbours());
+            case "single-sparse" -> new SingleLinkage().clusterSparse(labels, cm.neighbours());
+            case "louvain" -> new Louvain(threads, 1.0).run(labels, cm.neighbours()).root;
+            default -> new HierarchicalClustering().cluster(labels, cm::s, Linkage.of(engine));
+        };
+    }
+
+    /** "packages[:inner[:maxGroup]]" */
+    private static TwoLevelClustering twoLevel(String engine, int threads) {
+        String[] p = engine.split(":");
+        String inner = (p.length > 1) ? p[1] : "dense";
+        if (inner.startsWith("packages")) throw new IllegalArgumentException("moteur interne invalide : " + inner);
+        int maxGroup = (p.length > 2) ? Integer.parseInt(p[2]) : TwoLevelClustering.DEFAULT_MAX_GROUP;
+        return new TwoLevelClustering(inner, maxGroup, threads);
+    }
+
+    private static ClusterNode runSeeded(String engine, int threads, List<String> labels, CouplingMatrix cm,
+                                         List<? extends Collection<String>> seeds) {
+        if (engine.equals("dense")) return new HierarchicalClustering().cluster(labels, cm::s, seeds);
+        if (engine.equals("parallel")) return new HierarchicalClustering(threads).cluster(labels, cm::s, seeds);
+        if (engine.equals("louvain")) return new Louvain(threads, 1.0).run(labels, cm.neighbours(), seeds).root;
+
+        Map<String, Integer> group = new HashMap<>();
+        for (int g = 0; g < seeds.size(); g++) {
+            for (String l : seeds.get(g)) group.putIfAbsent(l, g);
+        }
+        HierarchicalClustering.Similarity s = (a, b) -> {
+            Integer ga = group.get(a);
+            return (ga != null && !a.equals(b) && ga.equals(group.get(b))) ? 1.0 : cm.s(a, b);
+        };
+        return switch (engine) {
+            case "sparse", "single-sparse" -> {
+                // voisinages complétés par S = 1 à l'intérieur des groupes (copie des seules lignes touchées)
+                Map<String, Map<String, Double>> nb = new HashMap<>(cm.neighbours());
+                for (var e : group.entrySet()) {
+                    Map<String, Double> row = new HashMap<>(nb.getOrDefault(e.getKey(), Map.of()));
+                    for (String b : seeds.get(e.getValue())) if (!b.equals(e.getKey())) row.put(b, 1.0);
+                    nb.put(e.getKey(), row);
+                }
+                yield engine.equals("sparse")
+                        ? new HierarchicalClustering().clusterSparse(labels, nb)
+                        : new SingleLinkage().clusterSparse(labels, nb);
+            }
+            default -> new HierarchicalClustering().cluster(labels, s, Linkage.of(engine));
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package org.analysis.clustering;
+
+import org.analysis.processing.model.CallGraph;
+import org.analysis.processing.model.ClassCouplingGraph;
+import org.analysis.processing.model.LongIntHashMap;
+import org.analysis.processing.model.StronglyConnectedComponents;
+import org.analysis.processing.model.SymbolTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Matrice de couplage symétrique entre noms simples de classes,
+ * construite depuis le graphe d'appels méthode->méthode.
+ * Seules les paires S(a,b) > 0 sont stockées (listes d'adjacence creuses).
+ */
+public class CouplingMatrix {
+    public final Set<String> classes = new LinkedHashSet<>();                 // noms simples
+    public final Map<String, String> simpleToFqn = new HashMap<>();
+    public final Map<String, String> simpleToPackage = new HashMap<>();
+    private final Map<String, Map<String, Double>> s = new HashMap<>();       // S(a,b) > 0
+
+    /** similarité entre noms simples (symétrique dans [0,1]). */
+    public double s(String a, String b) {
+        if (a.equals(b)) return 0.0; // on ignore l'auto-couplage pour clustering
+        return s.getOrDefault(a, Map.of()).getOrDefault(b, 0.0);
+    }
+
+    /** Voisins non nuls : a -> (b -> S(a,b)), symétrique. */
+    public Map<String, Map<String, Double>> neighbours() {
+        return Collections.unmodifiableMap(s);
+    }
+
+    /**
+     * Construit depuis le couplage classe->classe que le CallGraph agrège pendant le parsing :
+     * O(classes + arêtes de classes), filtre de préfixe évalué une fois par classe,
+     * poids w(A->B) indexés par paire d'ids de nom simple (aucune chaîne construite par arête).
+     */
+    public static CouplingMatrix fromCallGraph(CallGraph callGraph, String includePrefix) {
+        return fromCallGraph(callGraph, includePrefix, false);
+    }
+
+    /**
+     * @param callSites true : w(A->B) = nombre de sites d'appel ; false : nombre de paires de méthodes distinctes
+     */
+    public static CouplingMatrix fromCallGraph(CallGraph callGraph, String includePrefix, boolean callSites) {
+        CouplingMatrix cm = new CouplingMatrix();
+        SymbolTable sym = callGraph.symbols();
+        ClassCouplingGraph cg = callGraph.classGraph();
+
+        byte[] accepted = new byte[sym.classCount()]; // 0 = non évalué, 1 = retenu, 2 = exclu
+        LongIntHashMap w = new LongIntHashMap();      // (simple A, simple B) -> w(A->B)
+        long T = 0;
+
+        for (int e = 0; e < cg.edgeCount(); e++) {
+            int callerCls = cg.source(e), calleeCls = cg.target(e);
+            if (!accept(sym, callerCls, includePrefix, accepted)) continue;
+            if (!accept(sym, calleeCls, includePrefix, accepted)) continue;
+
+            String A = sym.simpleName(callerCls);
+            String B = sym.simpleName(calleeCls);
+            cm.classes.add(A); cm.classes.add(B);
+            cm.simpleToFqn.putIfAbsent(A, sym.classFqn(callerCls));
+            cm.simpleToFqn.putIfAbsent(B, sym.classFqn(calleeCls));
+            cm.simpleToPackage.putIfAbsent(A, sym.packageName(sym.classPackage(callerCls)));
+            cm.simpleToPackage.putIfAbsent(B, sym.packageName(sym.classPackage(calleeCls)));
+
+            int weight = cg.weight(e, callSites);
+            w.addTo(LongIntHashMap.pack(sym.classSimple(callerCls), sym.classSimple(calleeCls)), weight);
+            T += weight;
+        }
+
+        // Similarité symétrique S(A,B) = (wAB + wBA) / T, uniquement sur les arêtes existantes
+        if (T == 0) return cm;
+        for (int i = 0; i < w.size(); i++) {
+            long key = w.keyAt(i);
+            int A = LongIntHashMap.hi(key), B = LongIntHashMap.lo(key);
+            if (A == B) continue;
+            int wBA = w.get(LongIntHashMap.pack(B, A), 0);
+            double sim = (w.valueAt(i) + wBA) / (double) T;
+            String a = sym.nameOf(A), b = sym.nameOf(B);
+            cm.s.computeIfAbsent(a, k -> new HashMap<>()).put(b, sim);
+            cm.s.computeIfAbsent(b, k -> new HashMap<>()).put(a, sim);
+        }
+        return cm;
+    }
+
+    private static boolean accept(SymbolTable sym, int cls, String includePrefix, byte[] memo) {
+        if (includePrefix.isBlank()) return true;
+        if (memo[cls] == 0) memo[cls] = (byte) (sym.classFqn(cls).startsWith(includePrefix) ? 1 : 2);
+        return memo[cls] == 1;
+    }
+
+    /**
+     * Écrit S en Matrix Market creux (real symmetric : triangle inférieur i >= j seulement),
+     * indices 1..M dans l'ordre alphabétique des classes, libellés en commentaires.
+     * Écriture au fil de l'eau : seule la table classe -> indice est construite.
+     */
+    public void writeMatrixMarket(Writer w) throws IOException {
+        List<String> labels = new ArrayList<>(classes);
+        labels.sort(Comparator.naturalOrder());
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) index.put(labels.get(i), i + 1);
+
+        long nnz = 0;
+        for (var row : s.entrySet()) {
+            int i = index.get(row.getKey());
+            for (String b : row.getValue().keySet()) if (index.get(b) < i) nnz++;
+        }
+        w.write("%%MatrixMarket matrix coordinate real symmetric\n");
+        w.write("% S(a,b) = (w(A->B) + w(B->A)) / T\n");
+        for (int i = 0; i < labels.size(); i++) w.write("% " + (i + 1) + " " + labels.get(i) + "\n");
+        w.write(labels.size() + " " + labels.size() + " " + nnz + "\n");
+        for (String a : labels) {
+            Map<String, Double> row = s.get(a);
+            if (row == null) continue;
+            int i = index.get(a);
+            for (var e : row.entrySet()) {
+                int j = index.get(e.getKey());
+                if (j < i) w.write(i + " " + j + " " + e.getValue() + "\n");
+            }
+        }
+    }
+
+    /** Sous-matrice limitée aux classes données (S inchangée, couplages vers l'extérieur écartés). */
+    public CouplingMatrix restrict(Collection<String> subset) {
+        CouplingMatrix sub = new CouplingMatrix();
+        for (String a : subset) {
+            if (!classes.contains(a)) continue;
+            sub.classes.add(a);
+            sub.simpleToFqn.put(a, simpleToFqn.get(a));
+            sub.simpleToPackage.put(a, simpleToPackage.get(a));
+        }
+        for (String a : sub.classes) {
+            Map<String, Double> row = s.get(a);
+            if (row == null) continue;
+            for (var e : row.entrySet()) {
+                if (sub.classes.contains(e.getKey())) sub.s.computeIfAbsent(a, k -> new HashMap<>()).put(e.getKey(), e.getValue());
+            }
+        }
+        return sub;
+    }
+
+    /**
+     * Cycles de dépendances entre classes de la matrice (composantes fortement connexes du
+     * couplage classe->classe), en noms simples : à passer comme groupes imposés au clustering.
+     */
+    public List<List<String>> cycleSeeds(CallGraph callGraph) {
+        SymbolTable sym = callGraph.symbols();
+        StronglyConnectedComponents scc = StronglyConnectedComponents.of(callGraph.classGraph(), sym.classCount());
+        return scc.cycleGroups(cls -> {
+            String simple = sym.simpleName(cls);
+            return sym.classFqn(cls).equals(simpleToFqn.get(simple)) ? simple : null;
+        });
+    }
+
+    /**
+     * Rapport des cycles pour les points d'entrée : cycles de classes (voir cycleSeeds), puis
+     * cycles de packages commençant par pkgPrefix, une ligne chacun.
+     */
+    public static List<String> cycleReport(CallGraph callGraph, String pkgPrefix, List<List<String>> classCycles) {
+        SymbolTable sym = callGraph.symbols();
+        var pkgScc = StronglyConnectedComponents.ofPackages(callGraph.classGraph(), sym);
+        var pkgCycles = pkgScc.cycleGroups(p -> sym.packageName(p).startsWith(pkgPrefix) ? sym.packageName(p) : null);
+        return List.of("Cycles de classes (" + classCycles.size() + ") : " + classCycles,
+                "Cycles de packages (" + pkgCycles.size() + ") : " + pkgCycles);
+    }
+}
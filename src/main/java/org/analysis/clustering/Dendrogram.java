@@ -0,0 +1,162 @@
+package org.analysis.clustering;
+
+import java.util.*;
+
+/**
+ * Dendrogramme compact, au format "linkage" de SciPy : la k-ième fusion crée le nœud n + k
+ * à partir de left[k] et right[k] (ids &lt; n = feuilles), à la hauteur height[k], de taille size[k].
+ * Les feuilles sont rangées dans l'ordre du parcours gauche-droite : les éléments de
+ * n'importe quel nœud forment une tranche contiguë de cet ordre, exposée sans copie.
+ * Mémoire O(n) au lieu d'une liste d'items par nœud.
+ */
+public final class Dendrogram {
+
+    private final String[] labels;
+    private final int[] left, right, size;
+    private final double[] height;
+
+    private final int[] order;    // position -> feuille
+    private final int[] start;    // nœud -> début de sa tranche dans order
+    private final List<String> ordered; // labels dans l'ordre des feuilles (lecture seule)
+    private ClusterNode view;
+
+    /** Enregistre les fusions au fil du clustering. */
+    public static final class Builder {
+        private final String[] labels;
+        private final int[] left, right, size;
+        private final double[] height;
+        private int merges = 0;
+
+        public Builder(List<String> labels) {
+            int n = labels.size();
+            if (n == 0) throw new IllegalArgumentException("aucun label à regrouper");
+            this.labels = labels.toArray(new String[0]);
+            this.left = new int[n - 1];
+            this.right = new int[n - 1];
+            this.size = new int[n - 1];
+            this.height = new double[n - 1];
+        }
+
+        /** Fusionne deux nœuds existants ; renvoie l'id du nouveau nœud (n + k). */
+        public int merge(int a, int b, double h) {
+            int n = labels.length;
+            if (merges == n - 1) throw new IllegalStateException("toutes les fusions ont déjà eu lieu");
+            left[merges] = a;
+            right[merges] = b;
+            height[merges] = h;
+            size[merges] = sizeOf(a) + sizeOf(b);
+            return n + merges++;
+        }
+
+        /**
+         * Rejoue les fusions d'un arbre déjà construit (autre Dendrogram, feuille seule...) : ses feuilles,
+         * de gauche à droite, sont les labels firstLeaf, firstLeaf + 1... ; renvoie l'id de sa racine.
+         */
+        public int add(ClusterNode tree, int firstLeaf) {
+            // pré-ordre droite-gauche : lu à l'envers, c'est le post-ordre gauche-droite
+            List<ClusterNode> pre = new ArrayList<>();
+            Deque<ClusterNode> stack = new ArrayDeque<>();
+            stack.push(tree);
+            while (!stack.isEmpty()) {
+                ClusterNode c = stack.pop();
+                pre.add(c);
+                if (!c.isLeaf()) {
+                    stack.push(c.left);
+                    stack.push(c.right);
+                }
+            }
+            int[] ids = new int[pre.size()];
+            int sp = 0, leaf = firstLeaf;
+            for (int i = pre.size() - 1; i >= 0; i--) {
+                ClusterNode c = pre.get(i);
+                if (c.isLeaf()) {
+                    if (!labels[leaf].equals(c.items.get(0))) {
+                        throw new IllegalArgumentException("feuille " + c.items.get(0) + " attendue en " + labels[leaf]);
+                    }
+                    ids[sp++] = leaf++;
+                } else {
+                    int r = ids[--sp], l = ids[--sp];
+                    ids[sp++] = merge(l, r, c.height);
+                }
+            }
+            return ids[0];
+        }
+
+        public int sizeOf(int node) {
+            return (node < labels.length) ? 1 : size[node - labels.length];
+        }
+
+        public Dendrogram build() {
+            if (merges != labels.length - 1) {
+                throw new IllegalStateException("dendrogramme incomplet : " + merges + "/" + (labels.length - 1) + " fusions");
+            }
+            return new Dendrogram(labels, left, right, size, height);
+        }
+    }
+
+    private Dendrogram(String[] labels, int[] left, int[] right, int[] size, double[] height) {
+        this.labels = labels;
+        this.left = left;
+        this.right = right;
+        this.size = size;
+        this.height = height;
+
+        int n = labels.length;
+        this.order = new int[n];
+        this.start = new int[2 * n - 1];
+        // parcours gauche-droite itératif depuis la racine : position de chaque feuille
+        int[] stack = new int[n];
+        int sp = 0, pos = 0;
+        stack[sp++] = root();
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (isLeaf(node)) {
+                start[node] = pos;
+                order[pos++] = node;
+            } else {
+                stack[sp++] = right(node);
+                stack[sp++] = left(node);
+            }
+        }
+        // les ids des fusions sont topologiques : le début d'un nœud est celui de son fils gauche
+        for (int k = 0; k < n - 1; k++) start[n + k] = Math.min(start[left[k]], start[right[k]]);
+
+        String[] inOrder = new String[n];
+        for (int p = 0; p < n; p++) inOrder[p] = labels[order[p]];
+        this.ordered = Collections.unmodifiableList(Arrays.asList(inOrder));
+    }
+
+    public int leafCount() { return labels.length; }
+    public int root() { return 2 * labels.length - 2; }
+    public boolean isLeaf(int node) { return node < labels.length; }
+    public int left(int node) { return left[node - labels.length]; }
+    public int right(int node) { return right[node - labels.length]; }
+    public int size(int node) { return isLeaf(node) ? 1 : size[node - labels.length]; }
+    public double height(int node) { return isLeaf(node) ? 0.0 : height[node - labels.length]; }
+    public String label(int leaf) { return labels[leaf]; }
+
+    /** Feuille rangée à la position p de l'ordre du dendrogramme. */
+    public int leafAt(int p) { return order[p]; }
+
+    /** Éléments du nœud : tranche de l'ordre des feuilles, sans copie. */
+    public List<String> items(int node) {
+        int from = start[node];
+        return ordered.subList(from, from + size(node));
+    }
+
+    /** Vue ClusterNode (pour l'UI et l'extraction), construite une seule fois. */
+    public ClusterNode toClusterNode() {
+        if (view != null) return view;
+        int n = labels.length;
+        ClusterNode[] nodes = new ClusterNode[2 * n - 1];
+        for (int i = 0; i < n; i++) nodes[i] = ClusterNode.view(null, null, items(i), 0.0);
+        for (int k = 0; k < n - 1; k++) {
+            int id = n + k;
+            nodes[id] = ClusterNode.view(nodes[left[k]], nodes[right[k]], items(id), height[k]);
+            nodes[left[k]] = null; // seule la racine reste référencée
+            nodes[right[k]] = null;
+        }
+        view = nodes[root()];
+        return view;
+    }
+}
@@ -1,13 +1,29 @@
 package org.analysis.clustering;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Clustering hiérarchique agglomératif avec "average linkage".
  * Similarité fournie par une fonction S(a,b) symétrique dans [0,1].
+ * En mode parallèle (parallelism > 1), la recherche du meilleur couple et les
+ * sommes de linkage sont réparties sur un ForkJoinPool ; le résultat est identique
+ * au mode séquentiel (réduction déterministe, égalités départagées par indice).
  */
 public class HierarchicalClustering {
 
+    private final int parallelism;
+
+    public HierarchicalClustering() { this(1); }
+
+    /** @param parallelism nombre de threads du ForkJoinPool (1 = séquentiel) */
+    public HierarchicalClustering(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism doit être >= 1");
+        this.parallelism = parallelism;
+    }
+
     /** Interface pour fournir S(a,b). */
     public interface Similarity {
         double s(String a, String b); // symétrique, 0..1
@@ -15,65 +31,333 @@ public class HierarchicalClustering {
 
     /** Construit le dendrogramme à partir des labels (ex: noms simples de classes). */
     public ClusterNode cluster(List<String> labels, Similarity sim) {
-        // clusters actifs
-        List<ClusterNode> clusters = new ArrayList<>();
-        for (String l : labels) clusters.add(ClusterNode.leaf(l));
+        return cluster(labels, sim, List.of());
+    }
+
+    /**
+     * Idem avec des groupes imposés (ex : cycles de dépendances) : chaque groupe est fusionné
+     * à la hauteur 0 avant le clustering, qui ne travaille plus que sur (groupes + classes isolées).
+     * Les labels absents ou déjà pris par un groupe précédent sont ignorés.
+     */
+    public ClusterNode cluster(List<String> labels, Similarity sim, Collection<? extends Collection<String>> seeds) {
+        ForkJoinPool pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+        try {
+            return cluster(labels, sim, seeds, pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    private ClusterNode cluster(List<String> labels, Similarity sim, Collection<? extends Collection<String>> seeds,
+                                ForkJoinPool pool) {
+        Dendrogram.Builder dendro = new Dendrogram.Builder(labels);
+
+        // groupes imposés : fusionnés d'emblée, placés à la position de leur premier élément
+        Map<String, Integer> leaf = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) leaf.putIfAbsent(labels.get(i), i);
+        Active[] seededAt = new Active[labels.size()];
+        boolean[] taken = new boolean[labels.size()];
+        // éléments d'un cluster : liste chaînée de feuilles (first -> next -> ... -> last), fusion en O(1)
+        int[] next = new int[labels.size()];
+        Arrays.fill(next, -1);
+        for (Collection<String> seed : seeds) {
+            List<Integer> ids = new ArrayList<>();
+            for (String l : seed) {
+                Integer i = leaf.get(l);
+                if (i != null && !taken[i] && !ids.contains(i)) ids.add(i);
+            }
+            if (ids.size() < 2) continue;
+            ids.sort(null);
+            int id = ids.get(0), last = id;
+            taken[id] = true;
+            for (int k = 1; k < ids.size(); k++) {
+                int i = ids.get(k);
+                taken[i] = true;
+                next[last] = i;
+                last = i;
+                id = dendro.merge(id, i, 0.0);
+            }
+            seededAt[ids.get(0)] = new Active(id, ids.get(0), last, ids.size());
+        }
+
+        // clusters actifs (id dans le dendrogramme + chaîne de feuilles)
+        List<Active> clusters = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            if (seededAt[i] != null) clusters.add(seededAt[i]);
+            else if (!taken[i]) clusters.add(new Active(i, i, i, 1));
+        }
 
         // cache des similarités entre clusters : clé (i,j) -> S
-        Map<Long, Double> cache = new HashMap<>();
+        Map<Long, Double> cache = (pool == null) ? new HashMap<>() : new ConcurrentHashMap<>();
 
         while (clusters.size() > 1) {
             // trouver le meilleur couple (max S)
+            BestPair best = (pool == null)
+                    ? new BestPairTask(clusters, labels, next, sim, cache, null, 0, clusters.size()).compute()
+                    : pool.invoke(new BestPairTask(clusters, labels, next, sim, cache, pool, 0, clusters.size()));
+            int bi = best.i, bj = best.j;
+
+            Active a = clusters.get(bi);
+            Active b = clusters.get(bj);
+            double height = 1.0 - best.s; // distance visuelle
+
+            next[a.last] = b.first; // éléments de a puis de b, sans copie
+            Active c = new Active(dendro.merge(a.id, b.id, height), a.first, b.last, a.size + b.size);
+            // remplacer a et b par c
+            if (bj > bi) { clusters.remove(bj); clusters.remove(bi); }
+            else         { clusters.remove(bi); clusters.remove(bj); }
+            clusters.add(c);
+        }
+        return dendro.build().toClusterNode();
+    }
+
+    /** Cluster actif du moteur dense : id (jamais réutilisé), première et dernière feuille de sa chaîne, taille. */
+    private record Active(int id, int first, int last, int size) {
+
+        /** Éléments dans l'ordre de la chaîne. */
+        String[] items(List<String> labels, int[] next) {
+            String[] out = new String[size];
+            for (int k = 0, i = first; k < size; k++, i = next[i]) out[k] = labels.get(i);
+            return out;
+        }
+    }
+
+    /**
+     * Clustering avec un critère de linkage quelconque (mise à jour Lance–Williams en O(1)),
+     * par l'algorithme de la chaîne des plus proches voisins : O(n²) en temps sur une
+     * matrice de distances condensée (d = 1 - S). Le lien simple passe par l'arbre
+     * couvrant minimal (voir {@link SingleLinkage}), sans matrice.
+     */
+    public ClusterNode cluster(List<String> labels, Similarity sim, Linkage linkage) {
+        if (linkage == Linkage.SINGLE) return new SingleLinkage().cluster(labels, sim);
+
+        int n = labels.size();
+        if (n == 0) throw new IllegalArgumentException("aucun label à regrouper");
+        if ((long) n * (n - 1) / 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("trop de classes pour une matrice dense (" + n
+                    + ") : utiliser le lien simple ou le moteur creux");
+        }
+
+        double[] d = new double[n * (n - 1) / 2];
+        for (int i = 0; i < n; i++) {
+            String a = labels.get(i);
+            for (int j = i + 1; j < n; j++) d[condensed(n, i, j)] = 1.0 - sim.s(a, labels.get(j));
+        }
+
+        Dendrogram.Builder dendro = new Dendrogram.Builder(labels);
+        int[] node = new int[n];   // slot -> id dans le dendrogramme
+        int[] size = new int[n];
+        boolean[] active = new boolean[n];
+        for (int i = 0; i < n; i++) { node[i] = i; size[i] = 1; active[i] = true; }
+
+        int[] chain = new int[n];
+        int len = 0;
+        for (int merge = 0; merge < n - 1; merge++) {
+            if (len == 0) {
+                int first = 0;
+                while (!active[first]) first++;
+                chain[len++] = first;
+            }
+            // remonter la chaîne jusqu'à une paire de plus proches voisins réciproques
+            int a, b;
+            while (true) {
+                a = chain[len - 1];
+                int prev = (len >= 2) ? chain[len - 2] : -1;
+                int c = prev;
+                double best = (prev >= 0) ? d[condensed(n, a, prev)] : Double.POSITIVE_INFINITY;
+                for (int x = 0; x < n; x++) {
+                    if (!active[x] || x == a) continue;
+                    double dx = d[condensed(n, a, x)];
+                    if (dx < best) { best = dx; c = x; } // égalité : on garde prev (terminaison)
+                }
+                if (c == prev) { b = prev; break; }
+                chain[len++] = c;
+            }
+            len -= 2;
+
+            int i = Math.min(a, b), j = Math.max(a, b);
+            double dij = d[condensed(n, i, j)];
+            for (int k = 0; k < n; k++) {
+                if (!active[k] || k == i || k == j) continue;
+                int ki = condensed(n, k, i), kj = condensed(n, k, j);
+                d[ki] = linkage.update(d[ki], d[kj], dij, size[i], size[j], size[k]);
+            }
+            node[i] = dendro.merge(node[i], node[j], dij);
+            size[i] += size[j];
+            active[j] = false;
+        }
+        return dendro.build().toClusterNode();
+    }
+
+    /** Index de la paire (i, j), i != j, dans la matrice triangulaire condensée. */
+    private static int condensed(int n, int i, int j) {
+        if (i > j) { int t = i; i = j; j = t; }
+        return (int) ((long) n * i - (long) i * (i + 1) / 2 + (j - i - 1));
+    }
+
+    /** Meilleur couple (i < j) ; s = -1 si aucun. */
+    private record BestPair(double s, int i, int j) {
+        /** Réduction : à S égal, on garde le couple de plus petit indice (comme le parcours séquentiel). */
+        BestPair max(BestPair o) { return (o.s > s) ? o : this; }
+    }
+
+    /** Recherche du meilleur couple sur les lignes [lo, hi) de la matrice triangulaire. */
+    private final class BestPairTask extends RecursiveTask<BestPair> {
+        private static final long serialVersionUID = 1L;
+        private static final long MIN_PAIRS = 256;
+        private final List<Active> clusters;
+        private final List<String> labels;
+        private final int[] next;
+        private final Similarity sim;
+        private final Map<Long, Double> cache;
+        private final ForkJoinPool pool;
+        private final int lo, hi;
+
+        BestPairTask(List<Active> clusters, List<String> labels, int[] next, Similarity sim,
+                     Map<Long, Double> cache, ForkJoinPool pool, int lo, int hi) {
+            this.clusters = clusters; this.labels = labels; this.next = next; this.sim = sim; this.cache = cache;
+            this.pool = pool; this.lo = lo; this.hi = hi;
+        }
+
+        @Override protected BestPair compute() {
+            int n = clusters.size();
+            long pairs = (long) (hi - lo) * (n - lo);
+            if (pool != null && hi - lo > 1 && pairs > MIN_PAIRS) {
+                int mid = (lo + hi) >>> 1;
+                BestPairTask left = new BestPairTask(clusters, labels, next, sim, cache, pool, lo, mid);
+                BestPairTask right = new BestPairTask(clusters, labels, next, sim, cache, pool, mid, hi);
+                right.fork();
+                BestPair l = left.compute();
+                return l.max(right.join());
+            }
             double bestS = -1;
             int bi = -1, bj = -1;
-
-            for (int i = 0; i < clusters.size(); i++) {
-                for (int j = i + 1; j < clusters.size(); j++) {
-                    double sij = similarityBetween(clusters.get(i), clusters.get(j), sim, cache);
+            for (int i = lo; i < hi; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double sij = similarityBetween(clusters.get(i), clusters.get(j), labels, next, sim, cache, pool);
                     if (sij > bestS) {
                         bestS = sij; bi = i; bj = j;
                     }
                 }
             }
+            return new BestPair(bestS, bi, bj);
+        }
+    }
 
-            ClusterNode a = clusters.get(bi);
-            ClusterNode b = clusters.get(bj);
-            double height = 1.0 - bestS; // distance visuelle
+    /**
+     * Variante creuse de l'average linkage : seules les paires de clusters reliées
+     * par au moins une arête S(a,b) > 0 sont candidates. Coût ~ nombre de paires couplées.
+     * Les composantes déconnectées sont fusionnées à la fin à la hauteur 1.0.
+     *
+     * @param neighbours a -> (b -> S(a,b)) pour S > 0, symétrique
+     */
+    public ClusterNode clusterSparse(List<String> labels, Map<String, Map<String, Double>> neighbours) {
+        int n = labels.size();
+        if (n == 0) throw new IllegalArgumentException("aucun label à regrouper");
 
-            ClusterNode c = ClusterNode.merge(a, b, height);
-            // remplacer a et b par c
-            if (bj > bi) { clusters.remove(bj); clusters.remove(bi); }
-            else         { clusters.remove(bi); clusters.remove(bj); }
-            clusters.add(c);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(labels.get(i), i);
+
+        // identifiants : 0..n-1 feuilles, puis n, n+1, ... pour les fusions (jamais réutilisés)
+        Dendrogram.Builder dendro = new Dendrogram.Builder(labels);
+        List<Map<Integer, Double>> sums = new ArrayList<>(2 * n); // voisin -> somme des S entre paires
+        int[] size = new int[2 * n];
+        boolean[] alive = new boolean[2 * n];
+
+        for (int i = 0; i < n; i++) {
+            Map<Integer, Double> m = new HashMap<>();
+            for (var e : neighbours.getOrDefault(labels.get(i), Map.of()).entrySet()) {
+                Integer j = index.get(e.getKey());
+                if (j == null || j == i || e.getValue() <= 0) continue;
+                m.put(j, e.getValue());
+            }
+            sums.add(m);
+            size[i] = 1;
+            alive[i] = true;
+        }
+
+        // file de priorité des candidats (max S, puis plus petits indices)
+        PriorityQueue<Candidate> pq = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) {
+            for (var e : sums.get(i).entrySet()) {
+                if (e.getKey() > i) pq.add(new Candidate(e.getValue(), i, e.getKey()));
+            }
+        }
+
+        while (!pq.isEmpty()) {
+            Candidate best = pq.poll();
+            if (!alive[best.a] || !alive[best.b]) continue; // entrée périmée
+
+            int a = best.a, b = best.b;
+            int c = dendro.merge(a, b, 1.0 - best.s);
+            size[c] = size[a] + size[b];
+            alive[a] = false; alive[b] = false; alive[c] = true;
+
+            // sommes du nouveau cluster : on réutilise la plus grande des deux maps
+            Map<Integer, Double> big = sums.get(a), small = sums.get(b);
+            if (big.size() < small.size()) { Map<Integer, Double> t = big; big = small; small = t; }
+            big.remove(a); big.remove(b);
+            for (var e : small.entrySet()) {
+                int k = e.getKey();
+                if (k == a || k == b) continue;
+                big.merge(k, e.getValue(), Double::sum);
+            }
+            sums.set(a, null); sums.set(b, null);
+            sums.add(big);
+
+            for (var e : big.entrySet()) {
+                int k = e.getKey();
+                Map<Integer, Double> mk = sums.get(k);
+                mk.remove(a); mk.remove(b);
+                mk.put(c, e.getValue());
+                pq.add(new Candidate(e.getValue() / ((double) size[c] * size[k]), k, c));
+            }
+        }
+
+        // composantes restantes (sans couplage entre elles) : fusion à h = 1.0
+        int root = -1;
+        for (int i = 0; i < sums.size(); i++) {
+            if (!alive[i]) continue;
+            root = (root < 0) ? i : dendro.merge(root, i, 1.0);
+        }
+        return dendro.build().toClusterNode();
+    }
+
+    /** Paire candidate (a < b) et sa similarité moyenne. */
+    private record Candidate(double s, int a, int b) implements Comparable<Candidate> {
+        @Override public int compareTo(Candidate o) {
+            int c = Double.compare(o.s, s);
+            if (c != 0) return c;
+            c = Integer.compare(a, o.a);
+            return (c != 0) ? c : Integer.compare(b, o.b);
         }
-        return clusters.get(0);
     }
 
     // moyenne des similarités pairwise (average linkage)
-    private double similarityBetween(ClusterNode c1, ClusterNode c2, Similarity sim,
-                                     Map<Long, Double> cache) {
-        long key = key(c1.items, c2.items);
+    private double similarityBetween(Active c1, Active c2, List<String> labels, int[] next, Similarity sim,
+                                     Map<Long, Double> cache, ForkJoinPool pool) {
+        long key = key(c1.id, c2.id);
         Double cached = cache.get(key);
         if (cached != null) return cached;
 
-        double sum = 0; int n = 0;
-        for (String a : c1.items) {
-            for (String b : c2.items) {
-                sum += sim.s(a, b);
-                n++;
-            }
-        }
+        // éléments lus le long des chaînes : O(|c1| + |c2|), négligeable devant les |c1|·|c2| paires
+        String[] l = c1.items(labels, next), r = c2.items(labels, next);
+        long n = (long) l.length * r.length;
+        double sum = RowSums.total(l.length, n, i -> {
+            String a = l[i];
+            double row = 0;
+            for (String b : r) row += sim.s(a, b);
+            return row;
+        }, pool);
         double avg = (n == 0) ? 0.0 : (sum / n);
         cache.put(key, avg);
         return avg;
     }
 
-    private long key(List<String> a, List<String> b) {
-        // clé pauvre mais déterministe : hashCodes ordonnés.
-        int h1 = a.toString().hashCode();
-        int h2 = b.toString().hashCode();
-        long x = Integer.toUnsignedLong(Math.min(h1, h2));
-        long y = Integer.toUnsignedLong(Math.max(h1, h2));
-        return (x << 32) ^ y;
+    /** Clé exacte : les ids de clusters ne sont jamais réutilisés. */
+    private static long key(int a, int b) {
+        long x = Math.min(a, b);
+        long y = Math.max(a, b);
+        return (x << 32) | y;
     }
 }
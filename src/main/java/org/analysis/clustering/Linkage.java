@@ -0,0 +1,42 @@
+package org.analysis.clustering;
+
+/**
+ * Critère de linkage, exprimé par sa formule de Lance–Williams sur les distances d = 1 - S :
+ * la distance entre un cluster k et la fusion de i et j se calcule en O(1)
+ * à partir de d(k,i), d(k,j), d(i,j) et des tailles.
+ */
+public interface Linkage {
+
+    /** d(k, i∪j) à partir des distances avant fusion. */
+    double update(double dki, double dkj, double dij, int ni, int nj, int nk);
+
+    /** Lien simple : plus proche paire. */
+    Linkage SINGLE = (dki, dkj, dij, ni, nj, nk) -> Math.min(dki, dkj);
+
+    /** Lien complet : paire la plus éloignée. */
+    Linkage COMPLETE = (dki, dkj, dij, ni, nj, nk) -> Math.max(dki, dkj);
+
+    /** UPGMA : moyenne pondérée par les tailles (équivalent à l'average linkage historique). */
+    Linkage AVERAGE = (dki, dkj, dij, ni, nj, nk) -> (ni * dki + nj * dkj) / (ni + nj);
+
+    /** WPGMA : moyenne simple des deux distances. */
+    Linkage WEIGHTED = (dki, dkj, dij, ni, nj, nk) -> (dki + dkj) / 2.0;
+
+    /** Ward (variance minimale), forme euclidienne. */
+    Linkage WARD = (dki, dkj, dij, ni, nj, nk) -> {
+        double v = ((ni + nk) * dki * dki + (nj + nk) * dkj * dkj - nk * dij * dij) / (ni + nj + nk);
+        return Math.sqrt(Math.max(0.0, v));
+    };
+
+    /** Linkage par nom : single | complete | average | weighted | ward. */
+    static Linkage of(String name) {
+        return switch (name.toLowerCase()) {
+            case "single" -> SINGLE;
+            case "complete" -> COMPLETE;
+            case "average" -> AVERAGE;
+            case "weighted" -> WEIGHTED;
+            case "ward" -> WARD;
+            default -> throw new IllegalArgumentException("linkage inconnu : " + name);
+        };
+    }
+}
@@ -0,0 +1,431 @@
+package org.analysis.clustering;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Détection de communautés par Louvain sur le graphe creux des couplages S(a,b) > 0 :
+ * alternance déplacement local (chaque classe rejoint la communauté voisine qui augmente le plus
+ * la modularité) / agrégation (une communauté devient un nœud), jusqu'à stabilité.
+ * Coût ~ O(arêtes) par passe, au lieu du O(M²) ou plus du clustering hiérarchique.
+ *
+ * Déplacement local par blocs de BLOCK nœuds : les propositions d'un bloc sont calculées sur l'état
+ * figé au début du bloc (réparties sur un ForkJoinPool si parallelism > 1), puis appliquées dans
+ * l'ordre des nœuds après revérification du gain. Le découpage ne dépend pas du nombre de threads :
+ * le résultat est identique en séquentiel et en parallèle.
+ *
+ * Sortie compatible avec le pipeline existant : modules = communautés finales (ModuleExtractor.Modules,
+ * moyennes internes comme meanInternalCoupling) et dendrogramme dont les niveaux sont ceux de Louvain
+ * (hauteur = (niveau + 1) / (niveaux + 1), racine à 1).
+ */
+public final class Louvain {
+
+    /** Nœuds par bloc de propositions (fixe : le résultat ne dépend pas du nombre de threads). */
+    static final int BLOCK = 256;
+    private static final int MAX_SWEEPS = 64;
+    private static final double EPS = 1e-12;
+
+    private final int parallelism;
+    private final double resolution;
+
+    public Louvain() { this(1, 1.0); }
+
+    /**
+     * @param parallelism threads pour les propositions de déplacement (1 = séquentiel)
+     * @param resolution  gamma de la modularité (1 = classique ; plus grand = communautés plus petites)
+     */
+    public Louvain(int parallelism, double resolution) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism doit être >= 1");
+        if (!(resolution > 0)) throw new IllegalArgumentException("resolution doit être > 0");
+        this.parallelism = parallelism;
+        this.resolution = resolution;
+    }
+
+    /** Résultat : dendrogramme (vue), modules et modularité de la partition finale. */
+    public static final class Result {
+        public final ClusterNode root;
+        public final ModuleExtractor.Modules modules;
+        public final double modularity;
+        public final int levels;
+
+        Result(ClusterNode root, ModuleExtractor.Modules modules, double modularity, int levels) {
+            this.root = root;
+            this.modules = modules;
+            this.modularity = modularity;
+            this.levels = levels;
+        }
+    }
+
+    public Result run(List<String> labels, Map<String, Map<String, Double>> neighbours) {
+        return run(labels, neighbours, List.of());
+    }
+
+    /**
+     * @param neighbours a -> (b -> S(a,b)) symétrique (CouplingMatrix.neighbours())
+     * @param seeds      groupes imposés (ex : cycles), agrégés avant le premier déplacement
+     */
+    public Result run(List<String> labels, Map<String, Map<String, Double>> neighbours,
+                      List<? extends Collection<String>> seeds) {
+        if (labels.isEmpty()) throw new IllegalArgumentException("aucune classe à regrouper");
+        ForkJoinPool pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+        try {
+            return run(labels, neighbours, seeds, pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    private Result run(List<String> labels, Map<String, Map<String, Double>> neighbours,
+                       List<? extends Collection<String>> seeds, ForkJoinPool pool) {
+        Graph base = Graph.of(labels, neighbours);
+
+        // étiquette -> nœud courant ; niveaux[l] : nœud du niveau l -> nœud du niveau l + 1
+        int[] labelNode = new int[labels.size()];
+        for (int i = 0; i < labelNode.length; i++) labelNode[i] = i;
+        List<int[]> levels = new ArrayList<>();
+
+        Graph g = base;
+        int[] seedComm = seedPartition(labels, seeds);
+        if (seedComm != null) {
+            g = g.aggregate(seedComm, renumber(seedComm));
+            for (int i = 0; i < labelNode.length; i++) labelNode[i] = seedComm[i];
+        }
+
+        while (g.n > 1 && g.m2 > 0) {
+            int[] comm = localMove(g, pool);
+            int nc = renumber(comm);
+            if (nc == g.n) break; // plus aucun regroupement
+            levels.add(comm);
+            g = g.aggregate(comm, nc);
+        }
+
+        int[] top = labelNode.clone();
+        for (int[] level : levels) for (int i = 0; i < top.length; i++) top[i] = level[top[i]];
+
+        ClusterNode root = dendrogram(labels, labelNode, levels);
+        ModuleExtractor.Modules modules = modules(labels, base, top);
+        return new Result(root, modules, modularity(base, top), levels.size());
+    }
+
+    /* ---------- déplacement local ---------- */
+
+    private int[] localMove(Graph g, ForkJoinPool pool) {
+        int n = g.n;
+        int[] comm = new int[n];
+        double[] tot = new double[n];
+        for (int i = 0; i < n; i++) { comm[i] = i; tot[i] = g.k[i]; }
+        int[] proposal = new int[n];
+        Scratch seq = new Scratch(n);
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            int moves = 0;
+            for (int lo = 0; lo < n; lo += BLOCK) {
+                int hi = Math.min(n, lo + BLOCK);
+                if (pool == null || hi - lo < 2) {
+                    for (int i = lo; i < hi; i++) proposal[i] = best(g, i, comm, tot, seq);
+                } else {
+                    ProposeTask task = new ProposeTask(this, g, comm, tot, proposal, scratch, lo, hi);
+                    // déjà un worker de ce pool : exécution directe ; sinon (autre pool compris) le pool configuré
+                    if (ForkJoinTask.getPool() == pool) task.invoke(); else pool.invoke(task);
+                }
+                for (int i = lo; i < hi; i++) {
+                    int c = comm[i], d = proposal[i];
+                    if (d == c || gain(g, i, d, comm, tot) <= gain(g, i, c, comm, tot) + EPS) continue;
+                    tot[c] -= g.k[i];
+                    tot[d] += g.k[i];
+                    comm[i] = d;
+                    moves++;
+                }
+            }
+            if (moves == 0) break;
+        }
+        return comm;
+    }
+
+    /** Meilleure communauté pour i sur l'état donné (rester en cas d'égalité). */
+    private int best(Graph g, int i, int[] comm, double[] tot, Scratch s) {
+        int c = comm[i];
+        s.collect(g, i, comm);
+        double ki = g.k[i], factor = resolution * ki / g.m2;
+        int best = c;
+        double bestGain = s.weight[c] - factor * (tot[c] - ki);
+        for (int t = 0; t < s.count; t++) {
+            int d = s.touched[t];
+            if (d == c) continue;
+            double gain = s.weight[d] - factor * tot[d];
+            if (gain > bestGain + EPS) { best = d; bestGain = gain; }
+        }
+        s.clear();
+        return best;
+    }
+
+    /** Gain (à une constante près) de placer i, retiré de sa communauté, dans d. */
+    private double gain(Graph g, int i, int d, int[] comm, double[] tot) {
+        double w = 0;
+        for (int e = g.off[i]; e < g.off[i + 1]; e++) {
+            if (g.adj[e] != i && comm[g.adj[e]] == d) w += g.w[e];
+        }
+        double t = tot[d] - (comm[i] == d ? g.k[i] : 0);
+        return w - resolution * g.k[i] * t / g.m2;
+    }
+
+    /** Poids de i vers chaque communauté voisine (tampon d'un thread). */
+    private static final class Scratch {
+        final double[] weight;
+        final int[] touched;
+        int count;
+
+        Scratch(int n) {
+            weight = new double[n];
+            touched = new int[n];
+        }
+
+        void collect(Graph g, int i, int[] comm) {
+            for (int e = g.off[i]; e < g.off[i + 1]; e++) {
+                int j = g.adj[e];
+                if (j == i) continue; // boucle : interne au nœud, hors gain
+                int d = comm[j];
+                if (weight[d] == 0) touched[count++] = d;
+                weight[d] += g.w[e];
+            }
+        }
+
+        void clear() {
+            for (int t = 0; t < count; t++) weight[touched[t]] = 0;
+            count = 0;
+        }
+    }
+
+    private static final class ProposeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int GRAIN = 32;
+        private final Louvain louvain;
+        private final Graph g;
+        private final int[] comm, proposal;
+        private final double[] tot;
+        private final ThreadLocal<Scratch> scratch;
+        private final int lo, hi;
+
+        ProposeTask(Louvain louvain, Graph g, int[] comm, double[] tot, int[] proposal,
+                    ThreadLocal<Scratch> scratch, int lo, int hi) {
+            this.louvain = louvain; this.g = g; this.comm = comm; this.tot = tot;
+            this.proposal = proposal; this.scratch = scratch; this.lo = lo; this.hi = hi;
+        }
+
+        @Override protected void compute() {
+            if (hi - lo <= GRAIN) {
+                Scratch s = scratch.get();
+                for (int i = lo; i < hi; i++) proposal[i] = louvain.best(g, i, comm, tot, s);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ProposeTask(louvain, g, comm, tot, proposal, scratch, lo, mid),
+                      new ProposeTask(louvain, g, comm, tot, proposal, scratch, mid, hi));
+        }
+    }
+
+    /* ---------- graphe pondéré non orienté (CSR, les deux sens stockés) ---------- */
+
+    private static final class Graph {
+        final int n;
+        final int[] off, adj;
+        final double[] w;
+        final double[] k;   // degrés pondérés (boucle comprise)
+        final double m2;    // somme des degrés = 2m
+
+        Graph(int n, int[] off, int[] adj, double[] w) {
+            this.n = n; this.off = off; this.adj = adj; this.w = w;
+            k = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                for (int e = off[i]; e < off[i + 1]; e++) k[i] += w[e];
+                sum += k[i];
+            }
+            m2 = sum;
+        }
+
+        /** Voisins rangés par indice d'étiquette (ordre indépendant des HashMap). */
+        static Graph of(List<String> labels, Map<String, Map<String, Double>> neighbours) {
+            int n = labels.size();
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < n; i++) index.put(labels.get(i), i);
+            int[] off = new int[n + 1];
+            List<int[]> rows = new ArrayList<>(n);
+            List<double[]> weights = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Map<String, Double> row = neighbours.getOrDefault(labels.get(i), Map.of());
+                int[] js = new int[row.size()];
+                int c = 0;
+                for (var e : row.entrySet()) {
+                    Integer j = index.get(e.getKey());
+                    if (j != null && j != i && e.getValue() > 0) js[c++] = j;
+                }
+                js = Arrays.copyOf(js, c);
+                Arrays.sort(js);
+                double[] ws = new double[c];
+                for (int t = 0; t < c; t++) ws[t] = row.get(labels.get(js[t]));
+                rows.add(js);
+                weights.add(ws);
+                off[i + 1] = off[i] + c;
+            }
+            int[] adj = new int[off[n]];
+            double[] w = new double[off[n]];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(rows.get(i), 0, adj, off[i], rows.get(i).length);
+                System.arraycopy(weights.get(i), 0, w, off[i], weights.get(i).length);
+            }
+            return new Graph(n, off, adj, w);
+        }
+
+        /** Une communauté -> un nœud ; les arêtes internes deviennent une boucle (poids des deux sens). */
+        Graph aggregate(int[] comm, int nc) {
+            int[] memberOff = new int[nc + 1];
+            for (int i = 0; i < n; i++) memberOff[comm[i] + 1]++;
+            for (int c = 0; c < nc; c++) memberOff[c + 1] += memberOff[c];
+            int[] members = new int[n], fill = Arrays.copyOf(memberOff, nc);
+            for (int i = 0; i < n; i++) members[fill[comm[i]]++] = i;
+
+            double[] acc = new double[nc];
+            int[] touched = new int[nc];
+            int[] newOff = new int[nc + 1];
+            int[] newAdj = new int[adj.length];
+            double[] newW = new double[adj.length];
+            int pos = 0;
+            for (int c = 0; c < nc; c++) {
+                int count = 0;
+                for (int t = memberOff[c]; t < memberOff[c + 1]; t++) {
+                    int i = members[t];
+                    for (int e = off[i]; e < off[i + 1]; e++) {
+                        int d = comm[adj[e]];
+                        if (acc[d] == 0) touched[count++] = d;
+                        acc[d] += w[e];
+                    }
+                }
+                Arrays.sort(touched, 0, count);
+                for (int t = 0; t < count; t++) {
+                    newAdj[pos] = touched[t];
+                    newW[pos++] = acc[touched[t]];
+                    acc[touched[t]] = 0;
+                }
+                newOff[c + 1] = pos;
+            }
+            return new Graph(nc, newOff, Arrays.copyOf(newAdj, pos), Arrays.copyOf(newW, pos));
+        }
+    }
+
+    /** Renumérote comm en 0..nc-1 par ordre de première apparition ; renvoie nc. */
+    private static int renumber(int[] comm) {
+        int[] map = new int[comm.length];
+        Arrays.fill(map, -1);
+        int nc = 0;
+        for (int i = 0; i < comm.length; i++) {
+            if (map[comm[i]] < 0) map[comm[i]] = nc++;
+            comm[i] = map[comm[i]];
+        }
+        return nc;
+    }
+
+    /** Partition initiale des étiquettes selon les groupes imposés, null s'il n'y en a pas. */
+    private static int[] seedPartition(List<String> labels, List<? extends Collection<String>> seeds) {
+        if (seeds.isEmpty()) return null;
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) index.put(labels.get(i), i);
+        int[] comm = new int[labels.size()];
+        for (int i = 0; i < comm.length; i++) comm[i] = i;
+        for (Collection<String> group : seeds) {
+            int first = -1;
+            for (String l : group) {
+                Integer i = index.get(l);
+                if (i == null || comm[i] != i) continue; // absente ou déjà dans un groupe
+                if (first < 0) first = i; else comm[i] = first;
+            }
+        }
+        return comm;
+    }
+
+    /* ---------- sorties ---------- */
+
+    /** Dendrogramme : groupes imposés à 0, puis chaque niveau de Louvain, fusions équilibrées. */
+    private static ClusterNode dendrogram(List<String> labels, int[] labelNode, List<int[]> levels) {
+        Dendrogram.Builder b = new Dendrogram.Builder(labels);
+        int[] ids = new int[labels.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = i;
+        ids = foldGroups(b, ids, labelNode, 0.0);
+
+        int L = levels.size();
+        for (int l = 0; l < L; l++) ids = foldGroups(b, ids, levels.get(l), (double) (l + 1) / (L + 1));
+        fold(b, ids, 0, ids.length, 1.0);
+        return b.build().toClusterNode();
+    }
+
+    /** Nœuds ids[v] regroupés selon group[v] puis fusionnés groupe par groupe ; renvoie l'id de chaque groupe. */
+    private static int[] foldGroups(Dendrogram.Builder b, int[] ids, int[] group, double h) {
+        int nc = 0;
+        for (int c : group) nc = Math.max(nc, c + 1);
+        int[] off = new int[nc + 1];
+        for (int c : group) off[c + 1]++;
+        for (int c = 0; c < nc; c++) off[c + 1] += off[c];
+        int[] members = new int[group.length], fill = Arrays.copyOf(off, nc);
+        for (int v = 0; v < group.length; v++) members[fill[group[v]]++] = ids[v];
+
+        int[] out = new int[nc];
+        for (int c = 0; c < nc; c++) out[c] = fold(b, members, off[c], off[c + 1], h);
+        return out;
+    }
+
+    /** Fusion deux à deux par tours (arbre équilibré) à la hauteur h, sur place dans a[from, to). */
+    private static int fold(Dendrogram.Builder b, int[] a, int from, int to, double h) {
+        int size = to - from;
+        while (size > 1) {
+            int k = 0;
+            for (int i = 0; i + 1 < size; i += 2) a[from + k++] = b.merge(a[from + i], a[from + i + 1], h);
+            if (size % 2 == 1) a[from + k++] = a[from + size - 1];
+            size = k;
+        }
+        return a[from];
+    }
+
+    /** Communautés finales (par première étiquette) avec moyenne des S internes, en O(arêtes). */
+    private static ModuleExtractor.Modules modules(List<String> labels, Graph g, int[] top) {
+        int nc = 0;
+        for (int c : top) nc = Math.max(nc, c + 1);
+        double[] internal = new double[nc];
+        for (int i = 0; i < g.n; i++) {
+            for (int e = g.off[i]; e < g.off[i + 1]; e++) {
+                if (g.adj[e] > i && top[g.adj[e]] == top[i]) internal[top[i]] += g.w[e];
+            }
+        }
+        List<List<String>> byComm = new ArrayList<>(nc);
+        for (int c = 0; c < nc; c++) byComm.add(new ArrayList<>());
+        for (int i = 0; i < labels.size(); i++) byComm.get(top[i]).add(labels.get(i));
+
+        List<List<String>> groups = new ArrayList<>(nc);
+        Map<List<String>, Double> mean = new LinkedHashMap<>();
+        for (int c = 0; c < nc; c++) {
+            List<String> items = byComm.get(c);
+            Collections.sort(items);
+            long pairs = (long) items.size() * (items.size() - 1) / 2;
+            groups.add(items);
+            mean.put(items, pairs == 0 ? 0.0 : internal[c] / pairs);
+        }
+        return new ModuleExtractor.Modules(groups, mean);
+    }
+
+    /** Modularité Q (avec résolution) de la partition sur le graphe initial. */
+    private double modularity(Graph g, int[] comm) {
+        if (g.m2 == 0) return 0.0;
+        int nc = 0;
+        for (int c : comm) nc = Math.max(nc, c + 1);
+        double[] in = new double[nc], tot = new double[nc];
+        for (int i = 0; i < g.n; i++) {
+            tot[comm[i]] += g.k[i];
+            for (int e = g.off[i]; e < g.off[i + 1]; e++) if (comm[g.adj[e]] == comm[i]) in[comm[i]] += g.w[e];
+        }
+        double q = 0;
+        for (int c = 0; c < nc; c++) q += in[c] / g.m2 - resolution * (tot[c] / g.m2) * (tot[c] / g.m2);
+        return q;
+    }
+}
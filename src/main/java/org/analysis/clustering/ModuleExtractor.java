@@ -1,6 +1,8 @@
 package org.analysis.clustering;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Découpe le dendrogramme en modules selon :
@@ -10,6 +12,16 @@ import java.util.*;
  */
 public class ModuleExtractor {
 
+    private final int parallelism;
+
+    public ModuleExtractor() { this(1); }
+
+    /** @param parallelism threads pour les moyennes internes (1 = séquentiel) */
+    public ModuleExtractor(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism doit être >= 1");
+        this.parallelism = parallelism;
+    }
+
     /** Interface pour fournir S(a,b) symétrique (même que pour clustering). */
     public interface Similarity {
         double s(String a, String b); // 0..1
@@ -27,6 +39,31 @@ public class ModuleExtractor {
 
     /** Extraire les modules depuis la racine, avec seuil CP et limite M/2. */
     public Modules extract(ClusterNode root, double cpThreshold, Similarity s) {
+        ForkJoinPool pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+        try {
+            return extract(root, cpThreshold, s, pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    private Modules extract(ClusterNode root, double cpThreshold, Similarity s, ForkJoinPool pool) {
+        List<ClusterNode> accepted = select(root, cpThreshold, c -> meanInternalCoupling(c.items, s, pool));
+
+        // produire la sortie
+        List<List<String>> groups = new ArrayList<>();
+        Map<List<String>, Double> meanMap = new LinkedHashMap<>();
+        for (ClusterNode c : accepted) {
+            List<String> items = new ArrayList<>(c.items);
+            Collections.sort(items);
+            groups.add(items);
+            meanMap.put(items, meanInternalCoupling(items, s, pool));
+        }
+        return new Modules(groups, meanMap);
+    }
+
+    /** Parcours du dendrogramme : branches gardées comme modules (mean > CP, feuille ou limite M/2). */
+    private static List<ClusterNode> select(ClusterNode root, double cpThreshold, ToDoubleFunction<ClusterNode> meanOf) {
         int M = root.items.size();
         int maxModules = Math.max(1, M / 2);
 
@@ -37,7 +74,7 @@ public class ModuleExtractor {
         while (!stack.isEmpty()) {
             ClusterNode c = stack.pop();
 
-            double mean = meanInternalCoupling(c.items, s);
+            double mean = meanOf.applyAsDouble(c);
             boolean good = (mean > cpThreshold);
 
             if ((good || c.isLeaf()) || accepted.size() + stack.size() + 1 >= maxModules) {
@@ -50,29 +87,146 @@ public class ModuleExtractor {
                 // si feuille, on la gardera de toute façon (cas rare)
             }
         }
+        return accepted;
+    }
 
-        // produire la sortie
+    /* ---------- balayage de CP sur un même dendrogramme ---------- */
+
+    /** Moyenne de couplage interne de chaque nœud d'un dendrogramme (par identité de nœud). */
+    public static final class NodeMeans {
+        private final IdentityHashMap<ClusterNode, Double> mean = new IdentityHashMap<>();
+
+        public double of(ClusterNode c) {
+            Double m = mean.get(c);
+            if (m == null) throw new IllegalArgumentException("nœud hors du dendrogramme");
+            return m;
+        }
+    }
+
+    /** Une ligne du balayage : nombre de modules et cohésion moyenne (moyenne des means) pour un CP. */
+    public static final class SweepRow {
+        public final double cp;
+        public final int modules;
+        public final double cohesion;
+        public SweepRow(double cp, int modules, double cohesion) {
+            this.cp = cp;
+            this.modules = modules;
+            this.cohesion = cohesion;
+        }
+    }
+
+    /**
+     * Moyennes de tous les nœuds en une passe ascendante : somme(nœud) = somme(gauche) + somme(droite)
+     * + couplage croisé gauche x droite, soit chaque paire de classes évaluée une seule fois
+     * (M(M-1)/2 au total, contre autant par nœud si l'on recalcule).
+     */
+    public NodeMeans means(ClusterNode root, Similarity s) {
+        ForkJoinPool pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+        try {
+            NodeMeans means = new NodeMeans();
+            IdentityHashMap<ClusterNode, Double> sum = new IdentityHashMap<>();
+            Deque<ClusterNode> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) { // post-ordre itératif (dendrogrammes en chaîne : profondeur M)
+                ClusterNode c = stack.peek();
+                boolean ready = true;
+                if (c.left != null && !sum.containsKey(c.left)) { stack.push(c.left); ready = false; }
+                if (c.right != null && !sum.containsKey(c.right)) { stack.push(c.right); ready = false; }
+                if (!ready) continue;
+                stack.pop();
+                double total = 0;
+                if (c.left != null) total += sum.get(c.left);
+                if (c.right != null) total += sum.get(c.right);
+                if (c.left != null && c.right != null) total += cross(c.left.items, c.right.items, s, pool);
+                sum.put(c, total);
+                int k = c.items.size();
+                means.mean.put(c, (k <= 1) ? 0.0 : total / ((long) k * (k - 1) / 2));
+            }
+            return means;
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    private static double cross(List<String> a, List<String> b, Similarity s, ForkJoinPool pool) {
+        return RowSums.total(a.size(), (long) a.size() * b.size(), i -> {
+            String x = a.get(i);
+            double row = 0;
+            for (String y : b) row += s.s(x, y);
+            return row;
+        }, pool);
+    }
+
+    /** Extraction avec les moyennes précalculées (aucune évaluation de S). */
+    public Modules extract(ClusterNode root, double cpThreshold, NodeMeans means) {
         List<List<String>> groups = new ArrayList<>();
         Map<List<String>, Double> meanMap = new LinkedHashMap<>();
-        for (ClusterNode c : accepted) {
+        for (ClusterNode c : select(root, cpThreshold, means::of)) {
             List<String> items = new ArrayList<>(c.items);
             Collections.sort(items);
             groups.add(items);
-            meanMap.put(items, meanInternalCoupling(items, s));
+            meanMap.put(items, means.of(c));
         }
         return new Modules(groups, meanMap);
     }
 
+    /** Balayage : une passe de moyennes, puis un parcours par valeur de CP. */
+    public List<SweepRow> sweep(ClusterNode root, double[] thresholds, Similarity s) {
+        NodeMeans means = means(root, s);
+        List<SweepRow> rows = new ArrayList<>(thresholds.length);
+        for (double cp : thresholds) {
+            List<ClusterNode> accepted = select(root, cp, means::of);
+            double cohesion = 0;
+            for (ClusterNode c : accepted) cohesion += means.of(c);
+            rows.add(new SweepRow(cp, accepted.size(), cohesion / accepted.size()));
+        }
+        return rows;
+    }
+
+    /** Tableau du balayage (en-tête puis une ligne par CP), partagé par les points d'entrée. */
+    public static List<String> sweepTable(List<SweepRow> rows) {
+        List<String> table = new ArrayList<>(rows.size() + 1);
+        table.add(String.format(Locale.US, "%8s %8s %10s", "CP", "modules", "cohésion"));
+        for (SweepRow row : rows) {
+            table.add(String.format(Locale.US, "%8.3f %8d %10.4f", row.cp, row.modules, row.cohesion));
+        }
+        return table;
+    }
+
+    /** Valeurs de CP : "0.2" ; liste "0.05,0.1,0.2" ; plage "début:fin:pas" (fin incluse). */
+    public static double[] thresholds(String spec) {
+        if (spec.contains(":")) {
+            String[] p = spec.split(":");
+            if (p.length != 3) throw new IllegalArgumentException("plage attendue début:fin:pas : " + spec);
+            double from = Double.parseDouble(p[0]), to = Double.parseDouble(p[1]), step = Double.parseDouble(p[2]);
+            if (!(step > 0) || to < from) throw new IllegalArgumentException("plage invalide : " + spec);
+            int n = (int) Math.floor((to - from) / step + 1e-9) + 1;
+            double[] cps = new double[n];
+            for (int i = 0; i < n; i++) cps[i] = from + i * step;
+            return cps;
+        }
+        String[] p = spec.split(",");
+        double[] cps = new double[p.length];
+        for (int i = 0; i < p.length; i++) cps[i] = Double.parseDouble(p[i].trim());
+        return cps;
+    }
+
     /** Moyenne des S(a,b) pour toutes les paires a<b dans items. */
     public static double meanInternalCoupling(List<String> items, Similarity s) {
-        if (items.size() <= 1) return 0.0;
-        double sum = 0; int n = 0;
-        for (int i = 0; i < items.size(); i++) {
-            for (int j = i + 1; j < items.size(); j++) {
-                sum += s.s(items.get(i), items.get(j));
-                n++;
-            }
-        }
-        return (n == 0) ? 0.0 : (sum / n);
+        return meanInternalCoupling(items, s, null);
+    }
+
+    /** Idem, lignes réparties sur le pool (pool == null => séquentiel, même résultat). */
+    public static double meanInternalCoupling(List<String> items, Similarity s, ForkJoinPool pool) {
+        int k = items.size();
+        if (k <= 1) return 0.0;
+        long n = (long) k * (k - 1) / 2;
+        double sum = RowSums.total(k, n, i -> {
+            String a = items.get(i);
+            double row = 0;
+            for (int j = i + 1; j < k; j++) row += s.s(a, items.get(j));
+            return row;
+        }, pool);
+        return sum / n;
     }
 }
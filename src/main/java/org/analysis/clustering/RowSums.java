@@ -0,0 +1,59 @@
+package org.analysis.clustering;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Somme "par lignes" : chaque ligne est sommée séquentiellement, puis les lignes
+ * sont additionnées dans l'ordre. Le résultat est donc identique (bit à bit)
+ * en séquentiel et en parallèle, quel que soit le nombre de threads.
+ */
+final class RowSums {
+
+    /** Somme d'une ligne i. */
+    interface Row {
+        double sum(int i);
+    }
+
+    /** Sous ce nombre de cellules, on reste séquentiel (le fork coûte plus cher). */
+    static final long PARALLEL_MIN_CELLS = 1 << 14;
+
+    private RowSums() {}
+
+    /** Total des lignes [0, rows) ; pool == null => séquentiel. */
+    static double total(int rows, long cells, Row row, ForkJoinPool pool) {
+        if (pool == null || rows < 2 || cells < PARALLEL_MIN_CELLS) {
+            double total = 0;
+            for (int i = 0; i < rows; i++) total += row.sum(i);
+            return total;
+        }
+        double[] partial = new double[rows];
+        RowTask task = new RowTask(row, partial, 0, rows, Math.max(1, (int) (rows * PARALLEL_MIN_CELLS / cells)));
+        // déjà un worker de ce pool : exécution directe ; sinon (autre pool compris) le pool configuré
+        if (ForkJoinTask.getPool() == pool) task.invoke(); else pool.invoke(task);
+        double total = 0;
+        for (double p : partial) total += p;
+        return total;
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Row row;
+        private final double[] out;
+        private final int lo, hi, grain;
+
+        RowTask(Row row, double[] out, int lo, int hi, int grain) {
+            this.row = row; this.out = out; this.lo = lo; this.hi = hi; this.grain = grain;
+        }
+
+        @Override protected void compute() {
+            if (hi - lo <= grain) {
+                for (int i = lo; i < hi; i++) out[i] = row.sum(i);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RowTask(row, out, lo, mid, grain), new RowTask(row, out, mid, hi, grain));
+        }
+    }
+}
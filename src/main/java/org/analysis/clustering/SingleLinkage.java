@@ -0,0 +1,114 @@
+package org.analysis.clustering;
+
+import java.util.*;
+
+/**
+ * Lien simple via arbre couvrant minimal (distances d = 1 - S) :
+ *  - dense : Prim en O(n²) temps et O(n) mémoire, sans matrice de distances ;
+ *  - creux : Kruskal sur les seules paires S > 0, en O(E log E).
+ * Le dendrogramme s'obtient en fusionnant les arêtes de l'arbre par distance croissante.
+ */
+public class SingleLinkage {
+
+    /** Prim sur la similarité complète. */
+    public ClusterNode cluster(List<String> labels, HierarchicalClustering.Similarity sim) {
+        int n = labels.size();
+        if (n == 0) throw new IllegalArgumentException("aucun label à regrouper");
+
+        boolean[] inTree = new boolean[n];
+        double[] dist = new double[n];
+        int[] from = new int[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+
+        int[] u = new int[n - 1], v = new int[n - 1];
+        double[] w = new double[n - 1];
+
+        int cur = 0;
+        inTree[0] = true;
+        for (int e = 0; e < n - 1; e++) {
+            String a = labels.get(cur);
+            int next = -1;
+            for (int x = 0; x < n; x++) {
+                if (inTree[x]) continue;
+                double d = 1.0 - sim.s(a, labels.get(x));
+                if (d < dist[x]) { dist[x] = d; from[x] = cur; }
+                if (next < 0 || dist[x] < dist[next]) next = x;
+            }
+            u[e] = from[next]; v[e] = next; w[e] = dist[next];
+            inTree[next] = true;
+            cur = next;
+        }
+        return fromEdges(labels, u, v, w, n - 1);
+    }
+
+    /**
+     * Kruskal sur les voisins non nuls ; les composantes restantes sont fusionnées à h = 1.0.
+     *
+     * @param neighbours a -> (b -> S(a,b)) pour S > 0, symétrique
+     */
+    public ClusterNode clusterSparse(List<String> labels, Map<String, Map<String, Double>> neighbours) {
+        int n = labels.size();
+        if (n == 0) throw new IllegalArgumentException("aucun label à regrouper");
+
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(labels.get(i), i);
+
+        int m = 0;
+        int cap = 16;
+        int[] u = new int[cap], v = new int[cap];
+        double[] w = new double[cap];
+        for (int i = 0; i < n; i++) {
+            for (var e : neighbours.getOrDefault(labels.get(i), Map.of()).entrySet()) {
+                Integer j = index.get(e.getKey());
+                if (j == null || j <= i || e.getValue() <= 0) continue;
+                if (m == cap) {
+                    cap *= 2;
+                    u = Arrays.copyOf(u, cap); v = Arrays.copyOf(v, cap); w = Arrays.copyOf(w, cap);
+                }
+                u[m] = i; v[m] = j; w[m] = 1.0 - e.getValue();
+                m++;
+            }
+        }
+        return fromEdges(labels, u, v, w, m);
+    }
+
+    /** Union-find sur les arêtes triées par distance croissante (ordre d'entrée en cas d'égalité). */
+    private ClusterNode fromEdges(List<String> labels, int[] u, int[] v, double[] w, int m) {
+        int n = labels.size();
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> w[i]));
+
+        Dendrogram.Builder dendro = new Dendrogram.Builder(labels);
+        int[] parent = new int[n];
+        int[] top = new int[n]; // racine union-find -> id du nœud dans le dendrogramme
+        for (int i = 0; i < n; i++) { parent[i] = i; top[i] = i; }
+
+        int components = n;
+        for (int k = 0; k < m && components > 1; k++) {
+            int e = order[k];
+            int ra = find(parent, u[e]), rb = find(parent, v[e]);
+            if (ra == rb) continue;
+            int r = Math.min(ra, rb), o = Math.max(ra, rb);
+            top[r] = dendro.merge(top[r], top[o], w[e]);
+            parent[o] = r;
+            components--;
+        }
+
+        // forêt : on relie les composantes restantes à h = 1.0
+        int root = -1;
+        for (int i = 0; i < n; i++) {
+            if (parent[i] != i) continue;
+            root = (root < 0) ? top[i] : dendro.merge(root, top[i], 1.0);
+        }
+        return dendro.build().toClusterNode();
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+}
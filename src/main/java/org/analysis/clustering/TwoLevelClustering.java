@@ -0,0 +1,209 @@
+package org.analysis.clustering;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Clustering en deux niveaux pour réduire la taille du problème :
+ *  1) couplage agrégé par package, Sp(P,Q) = moyenne des S(a,b) pour a dans P, b dans Q
+ *     (average linkage entre packages), puis clustering hiérarchique des packages ;
+ *  2) découpe du dendrogramme de packages en groupes d'au plus maxGroup classes
+ *     (un package seul plus gros reste un groupe), puis clustering des classes de chaque groupe
+ *     par le moteur 'inner' (voir ClusteringEngine), groupes traités en parallèle ;
+ *  3) un seul dendrogramme : les groupes remplacent leurs nœuds de packages, les fusions
+ *     au-dessus gardent la hauteur du niveau package (relevée à celle de leurs enfants).
+ *
+ * Seule la similarité entre classes d'un même groupe est évaluée au niveau classe.
+ */
+public final class TwoLevelClustering {
+
+    public static final int DEFAULT_MAX_GROUP = 500;
+
+    private final String inner;
+    private final int maxGroup;
+    private final int parallelism;
+
+    /**
+     * @param inner       moteur pour les classes d'un groupe (dense, sparse, average...)
+     * @param maxGroup    taille maximale visée d'un groupe (classes)
+     * @param parallelism groupes traités en même temps (1 = séquentiel)
+     */
+    public TwoLevelClustering(String inner, int maxGroup, int parallelism) {
+        if (maxGroup < 1) throw new IllegalArgumentException("maxGroup doit être >= 1");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism doit être >= 1");
+        this.inner = inner;
+        this.maxGroup = maxGroup;
+        this.parallelism = parallelism;
+    }
+
+    public ClusterNode cluster(List<String> labels, CouplingMatrix cm) {
+        return cluster(labels, cm, List.of());
+    }
+
+    /** @param seeds groupes imposés, appliqués à l'intérieur de chaque groupe (parties hors groupe ignorées) */
+    public ClusterNode cluster(List<String> labels, CouplingMatrix cm, List<? extends Collection<String>> seeds) {
+        if (labels.isEmpty()) throw new IllegalArgumentException("aucune classe à regrouper");
+
+        // 1) classes par package (ordre de première apparition)
+        Map<String, List<String>> byPackage = new LinkedHashMap<>();
+        for (String l : labels) byPackage.computeIfAbsent(cm.simpleToPackage.getOrDefault(l, ""), k -> new ArrayList<>()).add(l);
+        List<String> packages = new ArrayList<>(byPackage.keySet());
+
+        Map<String, Map<String, Double>> sp = packageSimilarity(byPackage, cm);
+        ClusterNode pkgRoot = new HierarchicalClustering()
+                .cluster(packages, (p, q) -> p.equals(q) ? 0.0 : sp.getOrDefault(p, Map.of()).getOrDefault(q, 0.0));
+
+        // 2) groupes de packages
+        List<ClusterNode> groups = new ArrayList<>();
+        Map<ClusterNode, Integer> groupOf = new IdentityHashMap<>();
+        split(pkgRoot, byPackage, groups, groupOf);
+
+        List<ClusterNode> refined = refine(groups, byPackage, cm, seeds);
+
+        // 3) recollage : le dendrogramme de packages au-dessus des groupes
+        return rebuild(pkgRoot, groupOf, refined);
+    }
+
+    /** Sp(P,Q) = somme des S entre classes de P et de Q / (|P| |Q|), en O(arêtes). */
+    private static Map<String, Map<String, Double>> packageSimilarity(Map<String, List<String>> byPackage, CouplingMatrix cm) {
+        Map<String, String> pkgOf = new HashMap<>();
+        for (var e : byPackage.entrySet()) for (String l : e.getValue()) pkgOf.put(l, e.getKey());
+        Map<String, Map<String, Double>> sum = new HashMap<>();
+        for (var e : byPackage.entrySet()) {
+            for (String a : e.getValue()) {
+                for (var nb : cm.neighbours().getOrDefault(a, Map.of()).entrySet()) {
+                    String q = pkgOf.get(nb.getKey());
+                    if (q == null || q.equals(e.getKey())) continue;
+                    sum.computeIfAbsent(e.getKey(), k -> new HashMap<>()).merge(q, nb.getValue(), Double::sum);
+                }
+            }
+        }
+        for (var e : sum.entrySet()) {
+            int p = byPackage.get(e.getKey()).size();
+            e.getValue().replaceAll((q, v) -> v / ((double) p * byPackage.get(q).size()));
+        }
+        return sum;
+    }
+
+    /** Descente : un nœud de packages devient un groupe dès qu'il tient dans maxGroup classes (ou est une feuille). */
+    private void split(ClusterNode root, Map<String, List<String>> byPackage,
+                       List<ClusterNode> groups, Map<ClusterNode, Integer> groupOf) {
+        Deque<ClusterNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            ClusterNode c = stack.pop();
+            int size = 0;
+            for (String p : c.items) size += byPackage.get(p).size();
+            if (c.isLeaf() || size <= maxGroup) {
+                groupOf.put(c, groups.size());
+                groups.add(c);
+            } else {
+                stack.push(c.right);
+                stack.push(c.left);
+            }
+        }
+    }
+
+    /** Clustering des classes de chaque groupe, réparti sur un pool ; résultats rangés par groupe. */
+    private List<ClusterNode> refine(List<ClusterNode> groups, Map<String, List<String>> byPackage,
+                                     CouplingMatrix cm, List<? extends Collection<String>> seeds) {
+        List<Callable<ClusterNode>> tasks = new ArrayList<>(groups.size());
+        for (ClusterNode g : groups) {
+            List<String> classes = new ArrayList<>();
+            for (String p : g.items) classes.addAll(byPackage.get(p));
+            tasks.add(() -> clusterGroup(classes, cm, seeds));
+        }
+        if (parallelism == 1 || tasks.size() == 1) {
+            List<ClusterNode> out = new ArrayList<>(tasks.size());
+            for (Callable<ClusterNode> t : tasks) out.add(call(t));
+            return out;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ClusterNode> out = new ArrayList<>(tasks.size());
+            for (Future<ClusterNode> f : pool.invokeAll(tasks)) out.add(f.get());
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("clustering interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("clustering d'un groupe en échec", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ClusterNode clusterGroup(List<String> classes, CouplingMatrix cm, List<? extends Collection<String>> seeds) {
+        classes.sort(Comparator.naturalOrder());
+        if (classes.size() == 1) return ClusterNode.leaf(classes.get(0));
+        Set<String> members = new HashSet<>(classes);
+        List<List<String>> local = new ArrayList<>();
+        for (Collection<String> seed : seeds) {
+            List<String> part = new ArrayList<>();
+            for (String l : seed) if (members.contains(l)) part.add(l);
+            if (part.size() >= 2) local.add(part);
+        }
+        return ClusteringEngine.run(inner, 1, classes, cm.restrict(classes), local);
+    }
+
+    private static ClusterNode call(Callable<ClusterNode> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Un seul Dendrogram : fusions de chaque groupe rejouées (feuilles = classes des groupes bout à bout),
+     * puis celles de l'arbre de packages au-dessus des groupes, en post-ordre.
+     */
+    private static ClusterNode rebuild(ClusterNode pkgRoot, Map<ClusterNode, Integer> groupOf, List<ClusterNode> refined) {
+        List<String> labels = new ArrayList<>();
+        for (ClusterNode r : refined) labels.addAll(r.items);
+        Dendrogram.Builder b = new Dendrogram.Builder(labels);
+        int[] groupNode = new int[refined.size()];
+        double[] groupHeight = new double[refined.size()];
+        for (int g = 0, first = 0; g < refined.size(); g++) {
+            ClusterNode r = refined.get(g);
+            groupNode[g] = b.add(r, first);
+            groupHeight[g] = r.height;
+            first += r.items.size();
+        }
+
+        // pré-ordre droite-gauche arrêté aux groupes : lu à l'envers, c'est le post-ordre
+        List<ClusterNode> pre = new ArrayList<>();
+        Deque<ClusterNode> stack = new ArrayDeque<>();
+        stack.push(pkgRoot);
+        while (!stack.isEmpty()) {
+            ClusterNode c = stack.pop();
+            pre.add(c);
+            if (!groupOf.containsKey(c)) {
+                stack.push(c.left);
+                stack.push(c.right);
+            }
+        }
+        int[] ids = new int[pre.size()];
+        double[] heights = new double[pre.size()];
+        int sp = 0;
+        for (int i = pre.size() - 1; i >= 0; i--) {
+            ClusterNode c = pre.get(i);
+            Integer g = groupOf.get(c);
+            if (g != null) {
+                ids[sp] = groupNode[g];
+                heights[sp++] = groupHeight[g];
+            } else {
+                sp -= 2;
+                double h = Math.max(c.height, Math.max(heights[sp], heights[sp + 1]));
+                ids[sp] = b.merge(ids[sp], ids[sp + 1], h);
+                heights[sp++] = h;
+            }
+        }
+        return b.build().toClusterNode();
+    }
+}
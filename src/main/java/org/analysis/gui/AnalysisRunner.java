@@ -1,36 +1,38 @@
 package org.analysis.gui;
 
 import org.analysis.parsing.SourceParser;
-import org.analysis.processing.FileExplorer;
 import org.analysis.processing.StatisticsService;
 import org.analysis.processing.model.ProjectStats;
 
 import java.nio.file.Path;
 
-import static java.rmi.server.RemoteRef.packagePrefix;
-
 public class AnalysisRunner {
 
     public record AnalysisResult(StatisticsService.Answers answers, ProjectStats stats) {}
 
     public static AnalysisResult analyze(String rootDir, int xThreshold, String includePrefix) {
-        Path root = Path.of((rootDir == null || rootDir.isBlank()) ? "src/main/java" : rootDir);
+        return analyze(rootDir, xThreshold, includePrefix, null);
+    }
+
+    /** Variante avec suivi d'avancement (fichiers analysés / total) et interruption possible. */
+    public static AnalysisResult analyze(String rootDir, int xThreshold, String includePrefix,
+                                         SourceParser.Progress progress) {
+        ProjectStats stats = parse(rootDir, includePrefix, progress);
+        var answers = new StatisticsService().compute(stats, xThreshold);
+        return new AnalysisResult(answers, stats);
+    }
 
-        // (facultatif) tu peux garder cette ligne si tu l’utilises ailleurs
-        var files = FileExplorer.listJavaFiles(root);
+    /** Analyse syntaxique seule : les métriques sont laissées à l'appelant (ex : calcul paresseux). */
+    public static ProjectStats parse(String rootDir, String includePrefix, SourceParser.Progress progress) {
+        Path root = Path.of((rootDir == null || rootDir.isBlank()) ? "src/main/java" : rootDir);
 
+        // un seul parcours du dossier, élagué par package : la liste donne aussi le total pour la progression
         SourceParser parser = new SourceParser();
-
-        ProjectStats stats;
         try {
-            // ⚠️ passer le bon paramètre includePrefix (et non packagePrefix)
-            stats = parser.parseAll(root, includePrefix);
+            return parser.parseAll(root, includePrefix, progress);
         } catch (java.io.IOException e) {
             throw new RuntimeException("Échec d'analyse du dossier: " + root, e);
         }
-
-        var answers = new StatisticsService().compute(stats, xThreshold);
-        return new AnalysisResult(answers, stats);
     }
 
 }
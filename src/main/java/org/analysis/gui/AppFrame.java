@@ -7,6 +7,9 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 public class AppFrame extends JFrame {
 
@@ -15,6 +18,8 @@ public class AppFrame extends JFrame {
     private final JTextField tfPkg = new JTextField("org.analysis.codesource");
     private final JButton btnParcourir = new JButton("Parcourir…");
     private final JButton btnAnalyser = new JButton("Analyser");
+    private final JButton btnAnnuler = new JButton("Annuler");
+    private final JProgressBar progress = new JProgressBar();
 
     private final String[] questions = new String[]{
             "1) Nombre de classes",
@@ -34,8 +39,15 @@ public class AppFrame extends JFrame {
     private final JComboBox<String> cbQuestion = new JComboBox<>(questions);
     private final JTextArea taResult = new JTextArea(16, 80);
 
-    // garde la dernière analyse en mémoire
-    private StatisticsService.Answers answers = null;
+    // garde la dernière analyse en mémoire (éventuellement partielle pendant l'analyse)
+    private StatisticsService.Metrics answers = null;
+    private boolean partial = false;
+
+    // analyse en cours (hors EDT)
+    private SwingWorker<StatisticsService.Metrics, Step> worker = null;
+
+    /** Avancement publié vers l'EDT ; answers != null à chaque lot de fichiers terminé. */
+    private record Step(int done, int total, StatisticsService.Answers answers) {}
 
     public AppFrame() {
         super("Analyse Statique – Menu des questions");
@@ -77,13 +89,23 @@ public class AppFrame extends JFrame {
                 ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS,
                 ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED), BorderLayout.CENTER);
 
+        JPanel south = new JPanel(new BorderLayout(8, 8));
+        south.setBorder(new EmptyBorder(0, 12, 12, 12));
+        progress.setStringPainted(true);
+        progress.setString("");
+        btnAnnuler.setEnabled(false);
+        south.add(progress, BorderLayout.CENTER);
+        south.add(btnAnnuler, BorderLayout.EAST);
+
         setLayout(new BorderLayout());
         add(north, BorderLayout.NORTH);
         add(center, BorderLayout.CENTER);
+        add(south, BorderLayout.SOUTH);
 
         // Actions
         btnParcourir.addActionListener(this::chooseFolder);
         btnAnalyser.addActionListener(this::runAnalysis);
+        btnAnnuler.addActionListener(e -> { if (worker != null) worker.cancel(false); });
         btnAfficher.addActionListener(e -> showSelectedQuestion());
         cbQuestion.addActionListener(e -> { if (answers != null) showSelectedQuestion(); });
     }
@@ -97,20 +119,87 @@ public class AppFrame extends JFrame {
         }
     }
 
+    /** Lance l'analyse sur un SwingWorker : la fenêtre reste réactive, les résultats partiels arrivent par lots. */
     private void runAnalysis(ActionEvent e) {
+        String root = tfRoot.getText().trim();
+        String pkg = tfPkg.getText().trim();
+        int x;
         try {
-            String root = tfRoot.getText().trim();
-            String pkg = tfPkg.getText().trim();
-            int x = Integer.parseInt(tfX.getText().trim());
-
-            answers = AnalysisRunner.analyze(root, x, pkg.isBlank() ? null : pkg).answers();
-            JOptionPane.showMessageDialog(this, "Analyse terminée ✅", "Info", JOptionPane.INFORMATION_MESSAGE);
-            showSelectedQuestion();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+            x = Integer.parseInt(tfX.getText().trim());
+        } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, ex.getClass().getSimpleName() + ": " + ex.getMessage(),
                     "Erreur", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+
+        worker = new SwingWorker<>() {
+            private int nextBatch = 0;
+
+            @Override protected StatisticsService.Metrics doInBackground() {
+                var service = new StatisticsService();
+                var stats = AnalysisRunner.parse(root, pkg.isBlank() ? null : pkg, (done, total, partialStats) -> {
+                    // réponses partielles recalculées tous les ~5 % de fichiers
+                    StatisticsService.Answers batch = null;
+                    if (done >= nextBatch && done < total) {
+                        batch = service.compute(partialStats, x);
+                        nextBatch = done + Math.max(1, total / 20);
+                    }
+                    publish(new Step(done, total, batch));
+                    return !isCancelled();
+                });
+                // résultat final : chaque question n'est calculée qu'à son premier affichage
+                return service.computeLazy(stats, x);
+            }
+
+            @Override protected void process(List<Step> steps) {
+                Step last = steps.get(steps.size() - 1);
+                progress.setMaximum(Math.max(1, last.total()));
+                progress.setValue(last.done());
+                progress.setString(last.done() + " / " + last.total() + " fichiers");
+                for (int i = steps.size() - 1; i >= 0; i--) {
+                    if (steps.get(i).answers() != null) {
+                        answers = steps.get(i).answers();
+                        partial = true;
+                        showSelectedQuestion();
+                        break;
+                    }
+                }
+            }
+
+            @Override protected void done() {
+                setRunning(false);
+                if (worker == this) worker = null;
+                try {
+                    answers = get();
+                    partial = false;
+                    progress.setString("Analyse terminée");
+                    JOptionPane.showMessageDialog(AppFrame.this, "Analyse terminée ✅", "Info", JOptionPane.INFORMATION_MESSAGE);
+                    showSelectedQuestion();
+                } catch (CancellationException ex) {
+                    progress.setString("Analyse annulée (" + progress.getValue() + " / " + progress.getMaximum() + " fichiers)");
+                    showSelectedQuestion();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    cause.printStackTrace();
+                    JOptionPane.showMessageDialog(AppFrame.this, cause.getClass().getSimpleName() + ": " + cause.getMessage(),
+                            "Erreur", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        answers = null;
+        partial = false;
+        progress.setValue(0);
+        progress.setString("Recherche des fichiers…");
+        setRunning(true);
+        worker.execute();
+    }
+
+    private void setRunning(boolean running) {
+        btnAnalyser.setEnabled(!running);
+        btnAnnuler.setEnabled(running);
     }
 
     private void showSelectedQuestion() {
@@ -143,7 +232,8 @@ public class AppFrame extends JFrame {
             default -> out = "";
         }
 
-        taResult.setText("== " + questions[idx] + " ==\n" + out);
+        String header = "== " + questions[idx] + (partial ? " (résultat partiel)" : "") + " ==\n";
+        taResult.setText(header + out);
         taResult.setCaretPosition(0);
     }
 }
@@ -9,15 +9,26 @@ import java.util.*;
 /** Viewer Swing — nœuds "Classe#méthode" (sans package) avec le label À L’INTÉRIEUR + DRAG des nœuds. */
 public class CallGraphSwing extends JPanel {
 
+    private static final Font NODE_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+    private static final int CULL_MARGIN = 16; // pointes de flèches, traits épais
+
     // caller(FQN#method) -> callees(FQN#method)
     private final Map<String, Set<String>> graph;
 
-    // positions (centre des nœuds) dans le repère "monde" (avant zoom/pan)
+    // nœuds indexés 0..n-1 ; centres (repère "monde", avant zoom/pan) et rectangles en cache
     private final java.util.List<String> nodes = new ArrayList<>();
-    private final Map<String, Point> pos = new LinkedHashMap<>();
+    private String[] labels;
+    private int[] cx, cy;
+    private Rectangle[] rects;
+
+    // arêtes src -> dst, et arêtes incidentes à chaque nœud (CSR) pour le drag
+    private int[] edgeSrc, edgeDst;
+    private int[] incOff, incEdge;
 
-    // rectangles calculés au dernier paint (dans le repère monde)
-    private final Map<String, Rectangle> rects = new LinkedHashMap<>();
+    // index spatiaux (hover, culling) tenus à jour à chaque déplacement
+    private final SpatialGrid nodeGrid = new SpatialGrid(256);
+    private final SpatialGrid edgeGrid = new SpatialGrid(256);
+    private final BitSet visibleNodes = new BitSet(), visibleEdges = new BitSet();
 
     // zoom/pan (transform écran -> monde : world = (screen - offset) / scale)
     private double scale = 1.0;
@@ -25,14 +36,18 @@ public class CallGraphSwing extends JPanel {
     private Point lastDragScreen;
 
     // drag de nœud
-    private String draggingNode = null;
+    private int draggingNode = -1;
     private int grabDX = 0, grabDY = 0; // décalage (monde) entre souris et centre lors du press
 
+    // layout force-dirigé en cours (null une fois terminé ou interrompu)
+    private ForceLayout layout;
+
     public CallGraphSwing(Map<String, Set<String>> graph) {
         this.graph = graph;
         setBackground(Color.WHITE);
         setPreferredSize(new Dimension(1600, 1000));
         buildLayout();
+        startLayout();
         enableInteractions();
     }
 
@@ -48,9 +63,8 @@ public class CallGraphSwing extends JPanel {
         // survol : curseur "main" quand on est sur un nœud
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override public void mouseMoved(MouseEvent e) {
-                Point w = screenToWorld(e.getPoint());
-                String hit = findNodeAt(w);
-                setCursor(hit != null ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR)
+                int hit = nodeGrid.first(screenToWorld(e.getPoint()));
+                setCursor(hit >= 0 ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR)
                         : Cursor.getDefaultCursor());
             }
         });
@@ -60,38 +74,31 @@ public class CallGraphSwing extends JPanel {
             @Override public void mousePressed(MouseEvent e) {
                 lastDragScreen = e.getPoint();
                 Point w = screenToWorld(e.getPoint());
-                String hit = findNodeAt(w);
-                if (hit != null) {
+                int hit = nodeGrid.first(w);
+                if (hit >= 0) {
+                    stopLayout(); // l'utilisateur reprend la main
                     draggingNode = hit;
-                    Rectangle r = rects.get(hit);
-                    // centre du nœud (monde)
-                    int cx = r.x + r.width / 2;
-                    int cy = r.y + r.height / 2;
-                    grabDX = w.x - cx;
-                    grabDY = w.y - cy;
+                    grabDX = w.x - cx[hit];
+                    grabDY = w.y - cy[hit];
                 } else {
-                    draggingNode = null; // pan
+                    draggingNode = -1; // pan
                 }
             }
 
             @Override public void mouseReleased(MouseEvent e) {
-                draggingNode = null;
+                draggingNode = -1;
             }
         });
 
         // drag : si on a un nœud, on le déplace ; sinon on pan
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override public void mouseDragged(MouseEvent e) {
-                if (draggingNode != null) {
-                    // déplace le nœud dans le repère monde
+                if (draggingNode >= 0) {
+                    // déplace le nœud dans le repère monde (index mis à jour pour lui et ses arêtes)
                     Point w = screenToWorld(e.getPoint());
-                    Rectangle r = rects.get(draggingNode);
-                    if (r != null) {
-                        int newCx = w.x - grabDX;
-                        int newCy = w.y - grabDY;
-                        pos.put(draggingNode, new Point(newCx, newCy)); // on stocke le centre
-                        repaint();
-                    }
+                    moveNode(draggingNode, w.x - grabDX, w.y - grabDY);
+                    for (int k = incOff[draggingNode]; k < incOff[draggingNode + 1]; k++) indexEdge(incEdge[k]);
+                    repaint();
                 } else if (lastDragScreen != null) {
                     // pan classique (dans l'écran)
                     offX += e.getX() - lastDragScreen.x;
@@ -103,24 +110,97 @@ public class CallGraphSwing extends JPanel {
         });
     }
 
-    /* ====================== layout initial (cercle) ====================== */
+    /* ====================== layout initial (cercle, affiné ensuite par ForceLayout) ====================== */
     private void buildLayout() {
         Set<String> all = new LinkedHashSet<>(graph.keySet());
         graph.values().forEach(all::addAll);
         nodes.clear();
         nodes.addAll(all);
 
-        int n = Math.max(1, nodes.size());
-        int cx = 800, cy = 500, r = Math.min(cx, cy) - 140; // marge
+        int n = nodes.size();
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(nodes.get(i), i);
+
+        // arêtes + incidences
+        int m = 0;
+        for (Set<String> callees : graph.values()) m += callees.size();
+        edgeSrc = new int[m];
+        edgeDst = new int[m];
+        int k = 0;
+        for (var e : graph.entrySet()) {
+            int a = index.get(e.getKey());
+            for (String b : e.getValue()) { edgeSrc[k] = a; edgeDst[k] = index.get(b); k++; }
+        }
+        incOff = new int[n + 1];
+        for (int e = 0; e < m; e++) { incOff[edgeSrc[e] + 1]++; if (edgeDst[e] != edgeSrc[e]) incOff[edgeDst[e] + 1]++; }
+        for (int i = 0; i < n; i++) incOff[i + 1] += incOff[i];
+        incEdge = new int[incOff[n]];
+        int[] fill = Arrays.copyOf(incOff, n);
+        for (int e = 0; e < m; e++) {
+            incEdge[fill[edgeSrc[e]]++] = e;
+            if (edgeDst[e] != edgeSrc[e]) incEdge[fill[edgeDst[e]]++] = e;
+        }
+
+        // labels et tailles de boîte : métriques de police calculées une seule fois
+        FontMetrics fm = getFontMetrics(NODE_FONT);
+        labels = new String[n];
+        rects = new Rectangle[n];
+        cx = new int[n];
+        cy = new int[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = toClassHashMethod(nodes.get(i));
+            rects[i] = calcNodeRect(fm, labels[i]);
+        }
+
+        int centerX = 800, centerY = 500, r = Math.min(centerX, centerY) - 140; // marge
         r = Math.max(r, 300);
-        pos.clear();
         for (int i = 0; i < n; i++) {
             double a = 2 * Math.PI * i / n;
-            pos.put(nodes.get(i), new Point(
-                    cx + (int) (r * Math.cos(a)),
-                    cy + (int) (r * Math.sin(a))
-            ));
+            moveNode(i, centerX + (int) (r * Math.cos(a)), centerY + (int) (r * Math.sin(a)));
         }
+        for (int e = 0; e < m; e++) indexEdge(e);
+    }
+
+    /* ====================== layout force-dirigé (thread de fond) ====================== */
+    private void startLayout() {
+        int n = nodes.size();
+        double[] x0 = new double[n], y0 = new double[n];
+        for (int i = 0; i < n; i++) { x0[i] = cx[i]; y0[i] = cy[i]; }
+
+        layout = new ForceLayout(n, edgeSrc, edgeDst, x0, y0, 160, 800, 500);
+        layout.start((x, y, done) -> {
+            for (int i = 0; i < x.length; i++) moveNode(i, (int) Math.round(x[i]), (int) Math.round(y[i]));
+            for (int e = 0; e < edgeSrc.length; e++) indexEdge(e);
+            if (done) layout = null;
+            repaint();
+        });
+    }
+
+    private void stopLayout() {
+        if (layout != null) layout.cancel();
+        layout = null;
+    }
+
+    @Override public void removeNotify() {
+        stopLayout();
+        super.removeNotify();
+    }
+
+    /* ====================== index spatial ====================== */
+    private void moveNode(int i, int x, int y) {
+        cx[i] = x;
+        cy[i] = y;
+        Rectangle r = rects[i];
+        r.setLocation(x - r.width / 2, y - r.height / 2);
+        nodeGrid.put(i, r.x, r.y, r.width, r.height);
+    }
+
+    /** Boîte englobante du segment centre -> centre. */
+    private void indexEdge(int e) {
+        Rectangle a = rects[edgeSrc[e]], b = rects[edgeDst[e]];
+        int x1 = a.x + a.width / 2, y1 = a.y + a.height / 2;
+        int x2 = b.x + b.width / 2, y2 = b.y + b.height / 2;
+        edgeGrid.put(e, Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
     }
 
     /* ====================== utilitaires ====================== */
@@ -134,14 +214,13 @@ public class CallGraphSwing extends JPanel {
         return (meth.isEmpty()) ? simple : (simple + "#" + meth);
     }
 
-    private static Rectangle calcNodeRect(Graphics2D g2, Point center, String label) {
-        FontMetrics fm = g2.getFontMetrics();
+    private static Rectangle calcNodeRect(FontMetrics fm, String label) {
         int w = fm.stringWidth(label);
         int h = fm.getAscent() + fm.getDescent();
         int padX = 14, padY = 8;
         int boxW = Math.max(60, w + padX * 2);
         int boxH = Math.max(28, h + padY * 2);
-        return new Rectangle(center.x - boxW / 2, center.y - boxH / 2, boxW, boxH);
+        return new Rectangle(0, 0, boxW, boxH);
     }
 
     private Point screenToWorld(Point screen) {
@@ -151,13 +230,6 @@ public class CallGraphSwing extends JPanel {
         return new Point(wx, wy);
     }
 
-    private String findNodeAt(Point worldPoint) {
-        for (var e : rects.entrySet()) {
-            if (e.getValue().contains(worldPoint)) return e.getKey();
-        }
-        return null;
-    }
-
     /* ====================== rendu ====================== */
     @Override protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -170,36 +242,34 @@ public class CallGraphSwing extends JPanel {
         // qualité
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        g2.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
-
-        // 1) calculer/rafraîchir les rectangles pour chaque nœud (repère monde)
-        rects.clear();
-        for (String n : nodes) {
-            String label = toClassHashMethod(n);
-            Rectangle r = calcNodeRect(g2, pos.get(n), label);
-            rects.put(n, r);
-        }
+        g2.setFont(NODE_FONT);
+
+        // 1) zone visible (repère monde) : seuls les nœuds/arêtes qui la touchent sont tracés
+        Rectangle view = g2.getClipBounds();
+        if (view == null) view = new Rectangle(screenToWorld(new Point(0, 0)),
+                new Dimension((int) Math.ceil(getWidth() / scale), (int) Math.ceil(getHeight() / scale)));
+        view.grow(CULL_MARGIN, CULL_MARGIN);
+        nodeGrid.query(view, visibleNodes);
+        edgeGrid.query(view, visibleEdges);
 
         // 2) tracer les arêtes (centre -> centre)
         g2.setStroke(new BasicStroke(1.2f));
         g2.setColor(new Color(0x9AA5B1));
-        for (var e : graph.entrySet()) {
-            Rectangle rc = rects.get(e.getKey());
-            if (rc == null) continue;
+        for (int e = visibleEdges.nextSetBit(0); e >= 0; e = visibleEdges.nextSetBit(e + 1)) {
+            Rectangle rc = rects[edgeSrc[e]], rt = rects[edgeDst[e]];
             int x1 = rc.x + rc.width / 2, y1 = rc.y + rc.height / 2;
-            for (String v : e.getValue()) {
-                Rectangle rt = rects.get(v);
-                if (rt == null) continue;
-                int x2 = rt.x + rt.width / 2, y2 = rt.y + rt.height / 2;
-                g2.drawLine(x1, y1, x2, y2);
-                drawArrowHead(g2, x1, y1, x2, y2);
-            }
+            int x2 = rt.x + rt.width / 2, y2 = rt.y + rt.height / 2;
+            if (!view.intersectsLine(x1, y1, x2, y2)) continue; // boîte visible mais segment dehors
+            g2.drawLine(x1, y1, x2, y2);
+            drawArrowHead(g2, x1, y1, x2, y2);
         }
 
         // 3) tracer les nœuds (fond + bord + label centré)
-        for (String n : nodes) {
-            Rectangle r = rects.get(n);
-            String label = toClassHashMethod(n);
+        FontMetrics fm = g2.getFontMetrics();
+        BasicStroke border = new BasicStroke(1.6f);
+        for (int i = visibleNodes.nextSetBit(0); i >= 0; i = visibleNodes.nextSetBit(i + 1)) {
+            Rectangle r = rects[i];
+            String label = labels[i];
 
             // fond
             g2.setColor(Color.WHITE);
@@ -208,7 +278,7 @@ public class CallGraphSwing extends JPanel {
 
             // bord
             g2.setColor(new Color(0x2D6CDF));
-            g2.setStroke(new BasicStroke(1.6f));
+            g2.setStroke(border);
             g2.draw(rr);
 
             // petit point à gauche
@@ -218,7 +288,6 @@ public class CallGraphSwing extends JPanel {
 
             // label centré
             g2.setColor(new Color(0x0F1C2E));
-            FontMetrics fm = g2.getFontMetrics();
             int textW = fm.stringWidth(label);
             int textH = fm.getAscent();
             int tx = r.x + (r.width - textW) / 2;
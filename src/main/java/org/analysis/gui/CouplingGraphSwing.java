@@ -12,22 +12,40 @@ import java.util.*;
  * - Arêtes orientées, épaisseur ∝ weight
  * - Label d’arête: "w=11  (0.478)"
  * - Zoom (molette), pan (drag sur fond), drag & drop des nœuds.
+ * - Hover et culling via une grille spatiale (seul le visible est tracé).
  */
 public class CouplingGraphSwing extends JPanel {
 
+    private static final Font NODE_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 13);
+    private static final int CULL_MARGIN = 80; // labels d'arêtes centrés sur le milieu du segment
+
     // A -> (B -> EdgeInfo)
     private final Map<String, Map<String, EdgeInfo>> graph;
     private final java.util.List<String> nodes = new ArrayList<>();
-    private final Map<String, Point> pos = new LinkedHashMap<>();
-    private final Map<String, Rectangle> rects = new LinkedHashMap<>();
+    private int[] cx, cy;
+    private Rectangle[] rects;
+
+    // arêtes (ordre du graphe), incidences par nœud (CSR), épaisseur max
+    private int[] edgeSrc, edgeDst;
+    private EdgeInfo[] edgeInfo;
+    private String[] edgeLabels;
+    private int[] incOff, incEdge;
+    private int maxW = 1;
+
+    private final SpatialGrid nodeGrid = new SpatialGrid(256);
+    private final SpatialGrid edgeGrid = new SpatialGrid(256);
+    private final BitSet visibleNodes = new BitSet(), visibleEdges = new BitSet();
 
     // interactions
     private double scale = 1.0;
     private int offX = 0, offY = 0;
     private Point lastDragScreen;
-    private String draggingNode = null;
+    private int draggingNode = -1;
     private int grabDX = 0, grabDY = 0;
 
+    // layout force-dirigé en cours (null une fois terminé ou interrompu)
+    private ForceLayout layout;
+
     /** Poids et ratio (w / total). */
     public static class EdgeInfo {
         public final int weight;
@@ -40,6 +58,7 @@ public class CouplingGraphSwing extends JPanel {
         setBackground(Color.WHITE);
         setPreferredSize(new Dimension(1400, 900));
         buildLayout();
+        startLayout();
         enableInteractions();
     }
 
@@ -59,17 +78,87 @@ public class CouplingGraphSwing extends JPanel {
         for (var m : graph.values()) all.addAll(m.keySet());
         nodes.clear(); nodes.addAll(all);
 
-        int n = Math.max(1, nodes.size());
-        int cx = 700, cy = 450, r = Math.min(cx, cy) - 160;
+        int n = nodes.size();
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(nodes.get(i), i);
+
+        int m = 0;
+        for (var targets : graph.values()) m += targets.size();
+        edgeSrc = new int[m]; edgeDst = new int[m];
+        edgeInfo = new EdgeInfo[m]; edgeLabels = new String[m];
+        int k = 0;
+        for (var e1 : graph.entrySet()) {
+            int a = index.get(e1.getKey());
+            for (var e2 : e1.getValue().entrySet()) {
+                EdgeInfo info = e2.getValue();
+                edgeSrc[k] = a; edgeDst[k] = index.get(e2.getKey());
+                edgeInfo[k] = info;
+                edgeLabels[k] = String.format(Locale.US, "w=%d  (%.3f)", info.weight, info.ratio);
+                maxW = Math.max(maxW, info.weight);
+                k++;
+            }
+        }
+        incOff = new int[n + 1];
+        for (int e = 0; e < m; e++) { incOff[edgeSrc[e] + 1]++; if (edgeDst[e] != edgeSrc[e]) incOff[edgeDst[e] + 1]++; }
+        for (int i = 0; i < n; i++) incOff[i + 1] += incOff[i];
+        incEdge = new int[incOff[n]];
+        int[] fill = Arrays.copyOf(incOff, n);
+        for (int e = 0; e < m; e++) {
+            incEdge[fill[edgeSrc[e]]++] = e;
+            if (edgeDst[e] != edgeSrc[e]) incEdge[fill[edgeDst[e]]++] = e;
+        }
+
+        FontMetrics fm = getFontMetrics(NODE_FONT);
+        rects = new Rectangle[n];
+        cx = new int[n]; cy = new int[n];
+        for (int i = 0; i < n; i++) rects[i] = calcNodeRect(fm, nodes.get(i));
+
+        int centerX = 700, centerY = 450, r = Math.min(centerX, centerY) - 160;
         r = Math.max(r, 240);
-        pos.clear();
         for (int i = 0; i < n; i++) {
             double a = 2 * Math.PI * i / n;
-            pos.put(nodes.get(i), new Point(
-                    cx + (int)(r * Math.cos(a)),
-                    cy + (int)(r * Math.sin(a))
-            ));
+            moveNode(i, centerX + (int)(r * Math.cos(a)), centerY + (int)(r * Math.sin(a)));
         }
+        for (int e = 0; e < m; e++) indexEdge(e);
+    }
+
+    /** Layout force-dirigé sur un thread de fond ; les positions arrivent au fil de la convergence. */
+    private void startLayout() {
+        int n = nodes.size();
+        double[] x0 = new double[n], y0 = new double[n];
+        for (int i = 0; i < n; i++) { x0[i] = cx[i]; y0[i] = cy[i]; }
+
+        layout = new ForceLayout(n, edgeSrc, edgeDst, x0, y0, 200, 700, 450);
+        layout.start((x, y, done) -> {
+            for (int i = 0; i < x.length; i++) moveNode(i, (int) Math.round(x[i]), (int) Math.round(y[i]));
+            for (int e = 0; e < edgeSrc.length; e++) indexEdge(e);
+            if (done) layout = null;
+            repaint();
+        });
+    }
+
+    private void stopLayout() {
+        if (layout != null) layout.cancel();
+        layout = null;
+    }
+
+    @Override public void removeNotify() {
+        stopLayout();
+        super.removeNotify();
+    }
+
+    private void moveNode(int i, int x, int y) {
+        cx[i] = x; cy[i] = y;
+        Rectangle r = rects[i];
+        r.setLocation(x - r.width/2, y - r.height/2);
+        nodeGrid.put(i, r.x, r.y, r.width, r.height);
+    }
+
+    private void indexEdge(int e) {
+        Rectangle a = rects[edgeSrc[e]], b = rects[edgeDst[e]];
+        int ax = a.x + a.width/2, ay = a.y + a.height/2;
+        int bx = b.x + b.width/2, by = b.y + b.height/2;
+        edgeGrid.put(e, Math.min(ax, bx), Math.min(ay, by), Math.abs(bx - ax), Math.abs(by - ay));
     }
 
     private void enableInteractions() {
@@ -81,7 +170,7 @@ public class CouplingGraphSwing extends JPanel {
 
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override public void mouseMoved(MouseEvent e) {
-                setCursor(findNodeAt(screenToWorld(e.getPoint())) != null
+                setCursor(nodeGrid.first(screenToWorld(e.getPoint())) >= 0
                         ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR)
                         : Cursor.getDefaultCursor());
             }
@@ -91,30 +180,25 @@ public class CouplingGraphSwing extends JPanel {
             @Override public void mousePressed(MouseEvent e) {
                 lastDragScreen = e.getPoint();
                 Point w = screenToWorld(e.getPoint());
-                String hit = findNodeAt(w);
-                if (hit != null) {
+                int hit = nodeGrid.first(w);
+                if (hit >= 0) {
+                    stopLayout(); // l'utilisateur reprend la main
                     draggingNode = hit;
-                    Rectangle r = rects.get(hit);
-                    int cx = r.x + r.width/2, cy = r.y + r.height/2;
-                    grabDX = w.x - cx; grabDY = w.y - cy;
+                    grabDX = w.x - cx[hit]; grabDY = w.y - cy[hit];
                 } else {
-                    draggingNode = null;
+                    draggingNode = -1;
                 }
             }
-            @Override public void mouseReleased(MouseEvent e) { draggingNode = null; }
+            @Override public void mouseReleased(MouseEvent e) { draggingNode = -1; }
         });
 
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override public void mouseDragged(MouseEvent e) {
-                if (draggingNode != null) {
+                if (draggingNode >= 0) {
                     Point w = screenToWorld(e.getPoint());
-                    Rectangle r = rects.get(draggingNode);
-                    if (r != null) {
-                        int newCx = w.x - grabDX;
-                        int newCy = w.y - grabDY;
-                        pos.put(draggingNode, new Point(newCx, newCy));
-                        repaint();
-                    }
+                    moveNode(draggingNode, w.x - grabDX, w.y - grabDY);
+                    for (int k = incOff[draggingNode]; k < incOff[draggingNode + 1]; k++) indexEdge(incEdge[k]);
+                    repaint();
                 } else if (lastDragScreen != null) {
                     offX += e.getX() - lastDragScreen.x;
                     offY += e.getY() - lastDragScreen.y;
@@ -131,16 +215,10 @@ public class CouplingGraphSwing extends JPanel {
         return new Point(wx, wy);
     }
 
-    private String findNodeAt(Point world) {
-        for (var e : rects.entrySet()) if (e.getValue().contains(world)) return e.getKey();
-        return null;
-    }
-
-    private static Rectangle calcNodeRect(Graphics2D g2, Point center, String label) {
-        FontMetrics fm = g2.getFontMetrics();
+    private static Rectangle calcNodeRect(FontMetrics fm, String label) {
         int w = Math.max(80, fm.stringWidth(label) + 28);
         int h = 36;
-        return new Rectangle(center.x - w/2, center.y - h/2, w, h);
+        return new Rectangle(0, 0, w, h);
     }
 
     @Override protected void paintComponent(Graphics g) {
@@ -150,48 +228,42 @@ public class CouplingGraphSwing extends JPanel {
         g2.scale(scale, scale);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        g2.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 13));
-
-        // rectangles des nœuds
-        rects.clear();
-        for (String n : nodes) rects.put(n, calcNodeRect(g2, pos.get(n), n));
+        g2.setFont(NODE_FONT);
 
-        // épaisseur max pour la mise à l’échelle
-        int maxW = 1;
-        for (var m : this.graph.values())
-            for (var ei : m.values()) maxW = Math.max(maxW, ei.weight);
+        // zone visible (repère monde)
+        Rectangle view = g2.getClipBounds();
+        if (view == null) view = new Rectangle(screenToWorld(new Point(0, 0)),
+                new Dimension((int)Math.ceil(getWidth() / scale), (int)Math.ceil(getHeight() / scale)));
+        view.grow(CULL_MARGIN, CULL_MARGIN);
+        nodeGrid.query(view, visibleNodes);
+        edgeGrid.query(view, visibleEdges);
 
         // arêtes
-        for (var e1 : this.graph.entrySet()) {
-            String a = e1.getKey();
-            Rectangle ra = rects.get(a);
+        for (int e = visibleEdges.nextSetBit(0); e >= 0; e = visibleEdges.nextSetBit(e + 1)) {
+            Rectangle ra = rects[edgeSrc[e]], rb = rects[edgeDst[e]];
             int ax = ra.x + ra.width/2, ay = ra.y + ra.height/2;
+            int bx = rb.x + rb.width/2, by = rb.y + rb.height/2;
+            if (!view.intersectsLine(ax, ay, bx, by)) continue;
 
-            for (var e2 : e1.getValue().entrySet()) {
-                String b = e2.getKey();
-                Rectangle rb = rects.get(b);
-                int bx = rb.x + rb.width/2, by = rb.y + rb.height/2;
-
-                EdgeInfo info = e2.getValue();
-                float thickness = (float)(1.0 + 4.0 * info.weight / (double)maxW);
+            float thickness = (float)(1.0 + 4.0 * edgeInfo[e].weight / (double)maxW);
 
-                g2.setColor(new Color(0x9AA5B1));
-                g2.setStroke(new BasicStroke(thickness));
-                g2.drawLine(ax, ay, bx, by);
-                drawArrowHead(g2, ax, ay, bx, by, thickness);
+            g2.setColor(new Color(0x9AA5B1));
+            g2.setStroke(new BasicStroke(thickness));
+            g2.drawLine(ax, ay, bx, by);
+            drawArrowHead(g2, ax, ay, bx, by, thickness);
 
-                String lbl = String.format(Locale.US, "w=%d  (%.3f)", info.weight, info.ratio);
-                drawEdgeLabel(g2, lbl, ax, ay, bx, by);
-            }
+            drawEdgeLabel(g2, edgeLabels[e], ax, ay, bx, by);
         }
 
         // nœuds
-        for (String n : nodes) {
-            Rectangle r = rects.get(n);
+        BasicStroke border = new BasicStroke(1.6f);
+        for (int i = visibleNodes.nextSetBit(0); i >= 0; i = visibleNodes.nextSetBit(i + 1)) {
+            Rectangle r = rects[i];
+            String n = nodes.get(i);
             g2.setColor(Color.WHITE);
             g2.fill(new RoundRectangle2D.Double(r.x, r.y, r.width, r.height, 18, 18));
             g2.setColor(new Color(0x2D6CDF));
-            g2.setStroke(new BasicStroke(1.6f));
+            g2.setStroke(border);
             g2.draw(new RoundRectangle2D.Double(r.x, r.y, r.width, r.height, 18, 18));
             g2.fillOval(r.x + 8 - 5, r.y + r.height/2 - 5, 10, 10);
 
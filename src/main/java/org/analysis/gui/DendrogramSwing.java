@@ -6,6 +6,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 import java.util.*;
 
 /**
@@ -16,37 +17,101 @@ import java.util.*;
  *  - Zoom (molette) & Pan (drag)
  *  - Échelle de hauteur h=... sur la gauche
  *
+ * Passage à l'échelle (plusieurs dizaines de milliers de feuilles) :
+ *  - arbre aplati en tableaux (pas de HashMap par nœud, pas de récursion) ;
+ *  - niveau de détail : un sous-arbre plus petit que COLLAPSE_PX pixels devient un seul glyphe ;
+ *  - géométrie des branches mise en cache dans des Path2D, par bandes de feuilles, à chaque zoom ;
+ *  - rendu par tuiles hors écran (cache LRU) : le pan ne fait que recopier des images,
+ *    et seules les bandes/feuilles visibles dans une tuile sont dessinées.
+ *
  * API identique à l’ancienne : DendrogramSwing.show(root, modulesText)
  */
 public class DendrogramSwing extends JPanel {
 
-    private final ClusterNode root;
-
-    // Layout
-    private int maxDepth;
-    private final Map<ClusterNode, Integer> depth = new HashMap<>();
-    private final Map<ClusterNode, Point2D.Double> anchor = new HashMap<>(); // “points parent”
-    private final java.util.List<ClusterNode> leavesInOrder = new ArrayList<>();
-
     // Style
     private static final int LEAF_GAP = 34;     // écart vertical entre feuilles
     private static final int LEVEL_GAP = 100;   // écart horizontal entre niveaux
     private static final int LEFT_MARGIN = 80;  // pour l’échelle h=…
     private static final int TOP_MARGIN  = 40;
     private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 13);
+    private static final Font HEIGHT_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+    private static final Color GRID = new Color(240, 244, 248);
+    private static final int COLOR_LEVELS = 8;  // la palette sature au-delà
+
+    // Niveau de détail (en pixels écran)
+    private static final double COLLAPSE_PX = 4.0;       // sous-arbre replié en glyphe
+    private static final double MIN_LABEL_PX = 12.0;     // écart mini entre feuilles pour les pastilles
+    private static final double MIN_HEIGHT_LABEL_PX = 28.0;
+
+    // Tuiles
+    private static final int TILE = 256;
+    private static final int MAX_TILES = 160;
+    private static final int BAND_LEAVES = 256;  // hauteur d'une bande de géométrie (en feuilles)
+
+    // Arbre aplati (indices en préordre : parent < enfants)
+    private final int count;
+    private final int[] left, right, depth, leafStart, leafCount;
+    private final double[] ax, ay, minY, maxY, maxX, height;
+    private final String[] label;          // null pour un nœud interne
+    private final int[] leafAt;            // position -> nœud feuille
+    private int maxDepth;
+
+    // Géométrie pour l'échelle courante
+    private double geomScale = -1;
+    private Band[] bands = new Band[0];
+    private final BitSet hiddenLeaf = new BitSet();
+    private boolean drawPills;
+
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> e) {
+            return size() > MAX_TILES;
+        }
+    };
 
     // Interactions
     private double scale = 1.0;
     private int offX = 0, offY = 0;
     private Point lastDrag;
 
+    /** Une bande de feuilles : branches groupées par couleur, glyphes et étiquettes de hauteur. */
+    private static final class Band {
+        final Path2D.Double[] branches = new Path2D.Double[COLOR_LEVELS];
+        final Path2D.Double glyphs = new Path2D.Double();
+        final java.util.List<Integer> heightLabels = new ArrayList<>();
+        Rectangle2D bounds;
+
+        void include(double x1, double y1, double x2, double y2) {
+            Rectangle2D r = new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2),
+                    Math.abs(x2 - x1), Math.abs(y2 - y1));
+            if (bounds == null) bounds = r; else bounds.add(r);
+        }
+    }
+
     public DendrogramSwing(ClusterNode root) {
-        this.root = root;
         setBackground(Color.WHITE);
-        computeLayoutInfo();
+
+        // nombre de nœuds (itératif : un dendrogramme en chaîne peut être très profond)
+        int c = 0;
+        Deque<ClusterNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            ClusterNode n = stack.pop();
+            c++;
+            if (!n.isLeaf()) { stack.push(n.right); stack.push(n.left); }
+        }
+        count = c;
+        left = new int[count]; right = new int[count]; depth = new int[count];
+        leafStart = new int[count]; leafCount = new int[count];
+        ax = new double[count]; ay = new double[count];
+        minY = new double[count]; maxY = new double[count]; maxX = new double[count];
+        height = new double[count];
+        label = new String[count];
+        leafAt = new int[(count + 1) / 2];
+
+        computeLayoutInfo(root);
         setPreferredSize(new Dimension(
                 LEFT_MARGIN + (maxDepth + 1) * LEVEL_GAP + 400,
-                Math.max(500, TOP_MARGIN + leavesInOrder.size() * LEAF_GAP + 100)
+                Math.max(500, TOP_MARGIN + leafAt.length * LEAF_GAP + 100)
         ));
         enableInteractions();
     }
@@ -55,7 +120,7 @@ public class DendrogramSwing extends JPanel {
     private void enableInteractions() {
         addMouseWheelListener(e -> {
             double f = (e.getWheelRotation() < 0) ? 1.1 : 1/1.1;
-            scale = Math.max(0.5, Math.min(3.0, scale * f));
+            scale = Math.max(0.01, Math.min(3.0, scale * f));
             repaint();
         });
         addMouseListener(new MouseAdapter() {
@@ -74,87 +139,165 @@ public class DendrogramSwing extends JPanel {
     }
 
     /* =================== layout =================== */
-    private void computeLayoutInfo() {
-        // profondeur + ordre des feuilles (gauche->droite)
+    private void computeLayoutInfo(ClusterNode root) {
+        // préordre : profondeur, liens enfants, feuilles dans l'ordre (gauche->droite)
+        Deque<ClusterNode> nodes = new ArrayDeque<>();
+        Deque<int[]> meta = new ArrayDeque<>(); // {parent, côté (0 = gauche, 1 = droite), profondeur}
+        nodes.push(root);
+        meta.push(new int[]{-1, 0, 0});
+        int next = 0, leaves = 0;
         maxDepth = 0;
-        dfsDepth(root, 0);
-        collectLeaves(root);
-        // placer chaque feuille en Y régulier ; X par profondeur
-        for (int i = 0; i < leavesInOrder.size(); i++) {
-            ClusterNode leaf = leavesInOrder.get(i);
-            double x = LEFT_MARGIN + depth.get(leaf) * LEVEL_GAP;
-            double y = TOP_MARGIN + i * LEAF_GAP;
-            anchor.put(leaf, new Point2D.Double(x, y));
+        while (!nodes.isEmpty()) {
+            ClusterNode n = nodes.pop();
+            int[] m = meta.pop();
+            int id = next++;
+            if (m[0] >= 0) { if (m[1] == 0) left[m[0]] = id; else right[m[0]] = id; }
+            depth[id] = m[2];
+            maxDepth = Math.max(maxDepth, m[2]);
+            height[id] = n.height;
+            ax[id] = LEFT_MARGIN + m[2] * LEVEL_GAP;
+            if (n.isLeaf()) {
+                left[id] = right[id] = -1;
+                label[id] = n.items.get(0);
+                leafStart[id] = leaves;
+                leafCount[id] = 1;
+                leafAt[leaves] = id;
+                // placer chaque feuille en Y régulier ; X par profondeur
+                ay[id] = minY[id] = maxY[id] = TOP_MARGIN + leaves * LEAF_GAP;
+                maxX[id] = ax[id];
+                leaves++;
+            } else {
+                nodes.push(n.right); meta.push(new int[]{id, 1, m[2] + 1});
+                nodes.push(n.left);  meta.push(new int[]{id, 0, m[2] + 1});
+            }
         }
         // puis propager les ancres vers le haut : y-parent = milieu(yL, yR)
-        propagateAnchors(root);
-    }
-
-    private void dfsDepth(ClusterNode n, int d) {
-        depth.put(n, d);
-        maxDepth = Math.max(maxDepth, d);
-        if (!n.isLeaf()) {
-            dfsDepth(n.left, d + 1);
-            dfsDepth(n.right, d + 1);
+        for (int id = count - 1; id >= 0; id--) {
+            if (label[id] != null) continue;
+            int l = left[id], r = right[id];
+            ay[id] = (ay[l] + ay[r]) / 2.0;
+            minY[id] = Math.min(minY[l], minY[r]);
+            maxY[id] = Math.max(maxY[l], maxY[r]);
+            maxX[id] = Math.max(maxX[l], maxX[r]);
+            leafStart[id] = leafStart[l];
+            leafCount[id] = leafCount[l] + leafCount[r];
         }
     }
 
-    private void collectLeaves(ClusterNode n) {
-        if (n.isLeaf()) {
-            leavesInOrder.add(n);
-        } else {
-            collectLeaves(n.left);
-            collectLeaves(n.right);
-        }
-    }
+    /** (Re)construit la géométrie Path2D et le niveau de détail pour l'échelle courante. */
+    private void rebuildGeometry() {
+        geomScale = scale;
+        tiles.clear();
+        hiddenLeaf.clear();
+        drawPills = LEAF_GAP * scale >= MIN_LABEL_PX;
+
+        bands = new Band[Math.max(1, (leafAt.length + BAND_LEAVES - 1) / BAND_LEAVES)];
+        for (int b = 0; b < bands.length; b++) bands[b] = new Band();
+
+        int[] stack = new int[count];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int id = stack[--sp];
+            if (label[id] != null) continue;
+            int b = (int) ((ay[id] - TOP_MARGIN) / (BAND_LEAVES * LEAF_GAP));
+            Band band = bands[Math.max(0, Math.min(bands.length - 1, b))];
+
+            if ((maxY[id] - minY[id]) * scale < COLLAPSE_PX) {
+                // sous-arbre trop petit à l'écran : un seul triangle
+                double half = Math.max((maxY[id] - minY[id]) / 2.0, 1.5 / scale);
+                double cy = (minY[id] + maxY[id]) / 2.0;
+                band.glyphs.moveTo(ax[id], ay[id]);
+                band.glyphs.lineTo(maxX[id], cy - half);
+                band.glyphs.lineTo(maxX[id], cy + half);
+                band.glyphs.closePath();
+                band.include(ax[id], cy - half, maxX[id], cy + half);
+                hiddenLeaf.set(leafStart[id], leafStart[id] + leafCount[id]);
+                continue;
+            }
 
-    private void propagateAnchors(ClusterNode n) {
-        if (n.isLeaf()) return;
-        propagateAnchors(n.left);
-        propagateAnchors(n.right);
-        Point2D.Double L = anchor.get(n.left);
-        Point2D.Double R = anchor.get(n.right);
-        double x = LEFT_MARGIN + depth.get(n) * LEVEL_GAP;
-        double y = (L.y + R.y) / 2.0;
-        anchor.put(n, new Point2D.Double(x, y));
+            // Dessiner deux courbes douces depuis P -> L et P -> R (QuadCurve)
+            int c = Math.min(COLOR_LEVELS - 1, depth[id]);
+            if (band.branches[c] == null) band.branches[c] = new Path2D.Double();
+            Path2D.Double p = band.branches[c];
+            double ctrlX = ax[id] + LEVEL_GAP * 0.55;
+            for (int child : new int[]{left[id], right[id]}) {
+                p.moveTo(ax[id], ay[id]);
+                p.quadTo(ctrlX, ay[child], ax[child], ay[child]);
+                band.include(ax[id], ay[id], ax[child], ay[child]);
+            }
+            if ((maxY[id] - minY[id]) * scale >= MIN_HEIGHT_LABEL_PX) {
+                band.heightLabels.add(id);
+                band.include(ax[id] - 50, ay[id] - 20, ax[id], ay[id]);
+            }
+            stack[sp++] = right[id];
+            stack[sp++] = left[id];
+        }
     }
 
     /* =================== rendu =================== */
     @Override protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g.create();
+        if (geomScale != scale) rebuildGeometry();
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        // tuiles dans le repère "monde mis à l'échelle" (écran - offset)
+        int tx0 = Math.floorDiv(clip.x - offX, TILE), tx1 = Math.floorDiv(clip.x + clip.width - offX, TILE);
+        int ty0 = Math.floorDiv(clip.y - offY, TILE), ty1 = Math.floorDiv(clip.y + clip.height - offY, TILE);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                long key = ((long) tx << 32) ^ (ty & 0xFFFFFFFFL);
+                BufferedImage img = tiles.get(key);
+                if (img == null) {
+                    img = renderTile(tx, ty);
+                    tiles.put(key, img);
+                }
+                g.drawImage(img, tx * TILE + offX, ty * TILE + offY, null);
+            }
+        }
+    }
+
+    private BufferedImage renderTile(int tx, int ty) {
+        BufferedImage img = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = img.createGraphics();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, TILE, TILE);
 
         // transform
-        g2.translate(offX, offY);
+        g2.translate(-tx * TILE, -ty * TILE);
         g2.scale(scale, scale);
+        Rectangle2D world = new Rectangle2D.Double(tx * TILE / scale, ty * TILE / scale, TILE / scale, TILE / scale);
+        g2.clip(world);
 
         // qualité
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
         // fond quadrillé doux
-        drawGrid(g2);
+        drawGrid(g2, world);
 
         // échelle de hauteur h sur la gauche
-        drawHeightScale(g2);
+        if (world.getMinX() < LEFT_MARGIN) drawHeightScale(g2);
 
         // branches
-        drawBranches(g2, root);
+        drawBranches(g2, world);
 
         // feuilles (labels)
-        drawLeafLabels(g2);
+        if (drawPills) drawLeafLabels(g2, world);
 
         g2.dispose();
+        return img;
     }
 
-    private void drawGrid(Graphics2D g2) {
-        Rectangle clip = g2.getClipBounds();
-        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
-        g2.setColor(new Color(240, 244, 248));
-        for (int x = 0; x < clip.width / scale + 2000; x += 40)
-            g2.drawLine(x, -5000, x, 5000);
-        for (int y = -5000; y < clip.height / scale + 2000; y += 40)
-            g2.drawLine(-5000, y, 5000, y);
+    private void drawGrid(Graphics2D g2, Rectangle2D world) {
+        g2.setColor(GRID);
+        int x0 = (int) Math.floor(world.getMinX() / 40) * 40, y0 = (int) Math.floor(world.getMinY() / 40) * 40;
+        int x1 = (int) Math.ceil(world.getMaxX()), y1 = (int) Math.ceil(world.getMaxY());
+        if (40 * scale < 4) return; // grille illisible à ce zoom
+        for (int x = x0; x <= x1; x += 40) g2.drawLine(x, y0, x, y1);
+        for (int y = y0; y <= y1; y += 40) g2.drawLine(x0, y, x1, y);
     }
 
     private void drawHeightScale(Graphics2D g2) {
@@ -167,34 +310,27 @@ public class DendrogramSwing extends JPanel {
         }
     }
 
-    private void drawBranches(Graphics2D g2, ClusterNode n) {
-        if (n.isLeaf()) return;
-
-        Point2D.Double P = anchor.get(n);
-        Point2D.Double L = anchor.get(n.left);
-        Point2D.Double R = anchor.get(n.right);
-
-        // couleur selon profondeur
-        int d = depth.get(n);
-        Color col = levelColor(d);
+    private void drawBranches(Graphics2D g2, Rectangle2D world) {
         g2.setStroke(new BasicStroke(2f));
-        g2.setColor(col);
-
-        // Dessiner deux courbes douces depuis P -> L et P -> R (QuadCurve)
-        double ctrlX = P.x + LEVEL_GAP * 0.55;
-        QuadCurve2D q1 = new QuadCurve2D.Double(P.x, P.y, ctrlX, L.y, L.x, L.y);
-        QuadCurve2D q2 = new QuadCurve2D.Double(P.x, P.y, ctrlX, R.y, R.x, R.y);
-        g2.draw(q1);
-        g2.draw(q2);
-
-        // Etiquette de hauteur à gauche du point P
-        g2.setColor(new Color(0x5A6B7C));
-        g2.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
-        g2.drawString(String.format("h=%.2f", n.height), (int)P.x - 48, (int)P.y - 6);
-
-        // récursif
-        drawBranches(g2, n.left);
-        drawBranches(g2, n.right);
+        g2.setFont(HEIGHT_FONT);
+        for (Band band : bands) {
+            if (band.bounds == null || !band.bounds.intersects(world)) continue;
+            // couleur selon profondeur
+            for (int c = 0; c < COLOR_LEVELS; c++) {
+                if (band.branches[c] == null) continue;
+                g2.setColor(levelColor(c));
+                g2.draw(band.branches[c]);
+            }
+            g2.setColor(levelColor(COLOR_LEVELS - 1));
+            g2.fill(band.glyphs);
+
+            // Etiquette de hauteur à gauche du point P
+            g2.setColor(new Color(0x5A6B7C));
+            for (int id : band.heightLabels) {
+                if (!world.intersects(ax[id] - 50, ay[id] - 20, 50, 20)) continue;
+                g2.drawString(String.format("h=%.2f", height[id]), (int) ax[id] - 48, (int) ay[id] - 6);
+            }
+        }
     }
 
     private Color levelColor(int level) {
@@ -204,11 +340,16 @@ public class DendrogramSwing extends JPanel {
         return new Color((base >> 16) & 0xFF, (base >> 8) & 0xFF, base & 0xFF, (int)(a * 255));
     }
 
-    private void drawLeafLabels(Graphics2D g2) {
+    private void drawLeafLabels(Graphics2D g2, Rectangle2D world) {
         g2.setFont(LABEL_FONT);
-        for (ClusterNode leaf : leavesInOrder) {
-            Point2D.Double p = anchor.get(leaf);
-            drawPill(g2, (int)p.x, (int)p.y, leaf.items.get(0));
+        // seules les feuilles dont la pastille (h = 26) peut toucher la tuile
+        int from = Math.max(0, (int) Math.floor((world.getMinY() - 16 - TOP_MARGIN) / LEAF_GAP));
+        int to = Math.min(leafAt.length - 1, (int) Math.ceil((world.getMaxY() + 16 - TOP_MARGIN) / LEAF_GAP));
+        for (int p = from; p <= to; p++) {
+            if (hiddenLeaf.get(p)) continue;
+            int id = leafAt[p];
+            if (ax[id] + 30 > world.getMaxX() || ax[id] + 30 + 600 < world.getMinX()) continue;
+            drawPill(g2, (int) ax[id], (int) ay[id], label[id]);
         }
     }
 
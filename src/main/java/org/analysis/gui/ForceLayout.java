@@ -0,0 +1,369 @@
+package org.analysis.gui;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Layout force-dirigé (Fruchterman–Reingold) pour les viewers de graphes.
+ *  - Répulsions approximées par Barnes–Hut (quadtree) : O(n log n) par itération.
+ *  - Au-delà de MULTILEVEL_MIN nœuds : mode multiniveau (appariement des arêtes lourdes,
+ *    layout du graphe le plus grossier, puis raffinement niveau par niveau).
+ *  - Tourne sur un thread de fond ; les positions sont publiées vers l'EDT au fil de la
+ *    convergence, sans jamais bloquer l'interface.
+ */
+public class ForceLayout {
+
+    /** Reçoit les positions (sur l'EDT). Les tableaux sont des copies. */
+    public interface Listener {
+        void positions(double[] x, double[] y, boolean done);
+    }
+
+    static final int MULTILEVEL_MIN = 10_000;
+    private static final int COARSEST = 500;
+    private static final double THETA = 0.8;
+    private static final long PUBLISH_EVERY_NS = 40_000_000L; // ~25 images/s
+
+    private final int n;
+    private final int[] src, dst;
+    private final double[] x0, y0;
+    private final double edgeLength;
+    private final double centerX, centerY;
+
+    private volatile boolean cancelled = false;
+    private final AtomicBoolean publishPending = new AtomicBoolean(false);
+    private long lastPublish = 0;
+
+    /**
+     * @param n          nombre de nœuds (indices 0..n-1)
+     * @param src        extrémités des arêtes (orientation ignorée)
+     * @param dst        idem
+     * @param x0         positions initiales
+     * @param edgeLength longueur idéale d'une arête (pixels monde)
+     */
+    public ForceLayout(int n, int[] src, int[] dst, double[] x0, double[] y0,
+                       double edgeLength, double centerX, double centerY) {
+        this.n = n;
+        this.src = src;
+        this.dst = dst;
+        this.x0 = x0.clone();
+        this.y0 = y0.clone();
+        this.edgeLength = edgeLength;
+        this.centerX = centerX;
+        this.centerY = centerY;
+    }
+
+    /** Démarre le calcul sur un thread démon. */
+    public void start(Listener listener) {
+        Thread t = new Thread(() -> run(listener), "force-layout");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        t.start();
+    }
+
+    /** Arrête le calcul (ex : l'utilisateur déplace un nœud, ou la fenêtre est fermée). */
+    public void cancel() { cancelled = true; }
+
+    /* ====================== niveaux ====================== */
+
+    /** Graphe non orienté en CSR, plus la projection vers le niveau grossier suivant. */
+    private static final class Level {
+        final int n;
+        final int[] off, adj;
+        final double[] w;
+        int[] toCoarse; // nœud -> nœud du niveau suivant
+
+        Level(int n, int[] off, int[] adj, double[] w) {
+            this.n = n; this.off = off; this.adj = adj; this.w = w;
+        }
+    }
+
+    private void run(Listener listener) {
+        Level fine = csr(n, src, dst, null);
+        List<Level> levels = new ArrayList<>();
+        levels.add(fine);
+        if (n > MULTILEVEL_MIN) {
+            Level cur = fine;
+            while (cur.n > COARSEST) {
+                Level next = coarsen(cur);
+                if (next.n > cur.n * 0.9) break; // l'appariement ne réduit plus assez
+                levels.add(next);
+                cur = next;
+            }
+        }
+
+        // positions du niveau le plus grossier : moyenne des positions initiales
+        int top = levels.size() - 1;
+        double[] x = x0.clone(), y = y0.clone();
+        for (int l = 0; l < top; l++) {
+            Level lv = levels.get(l);
+            int cn = levels.get(l + 1).n;
+            double[] cx = new double[cn], cy = new double[cn];
+            int[] cnt = new int[cn];
+            for (int i = 0; i < lv.n; i++) {
+                int c = lv.toCoarse[i];
+                cx[c] += x[i]; cy[c] += y[i]; cnt[c]++;
+            }
+            for (int c = 0; c < cn; c++) { cx[c] /= cnt[c]; cy[c] /= cnt[c]; }
+            x = cx; y = cy;
+        }
+
+        Random rnd = new Random(42);
+        for (int l = top; l >= 0 && !cancelled; l--) {
+            int iterations = (l == top) ? 300 : 60;
+            iterate(levels, l, x, y, iterations, listener);
+            if (l > 0) {
+                // prolongation : chaque nœud fin part de la position de son agrégat
+                Level finer = levels.get(l - 1);
+                double[] fx = new double[finer.n], fy = new double[finer.n];
+                double jitter = edgeLength * 0.1;
+                for (int i = 0; i < finer.n; i++) {
+                    int c = finer.toCoarse[i];
+                    fx[i] = x[c] + (rnd.nextDouble() - 0.5) * jitter;
+                    fy[i] = y[c] + (rnd.nextDouble() - 0.5) * jitter;
+                }
+                x = fx; y = fy;
+            }
+        }
+        if (!cancelled) publish(levels, 0, x, y, listener, true);
+    }
+
+    /** Appariement glouton par arête la plus lourde. */
+    private static Level coarsen(Level lv) {
+        int[] match = new int[lv.n];
+        Arrays.fill(match, -1);
+        int cn = 0;
+        lv.toCoarse = new int[lv.n];
+        for (int u = 0; u < lv.n; u++) {
+            if (match[u] >= 0) continue;
+            int best = -1;
+            double bw = -1;
+            for (int e = lv.off[u]; e < lv.off[u + 1]; e++) {
+                int v = lv.adj[e];
+                if (v != u && match[v] < 0 && lv.w[e] > bw) { bw = lv.w[e]; best = v; }
+            }
+            match[u] = (best >= 0) ? best : u;
+            if (best >= 0) match[best] = u;
+            lv.toCoarse[u] = cn;
+            if (best >= 0) lv.toCoarse[best] = cn;
+            cn++;
+        }
+        // arêtes du niveau grossier (les doublons s'additionnent via les poids)
+        int m = lv.adj.length;
+        int[] s = new int[m], d = new int[m];
+        double[] w = new double[m];
+        int k = 0;
+        for (int u = 0; u < lv.n; u++) {
+            for (int e = lv.off[u]; e < lv.off[u + 1]; e++) {
+                int v = lv.adj[e];
+                if (u >= v) continue; // chaque arête non orientée une seule fois
+                int cu = lv.toCoarse[u], cv = lv.toCoarse[v];
+                if (cu == cv) continue;
+                s[k] = cu; d[k] = cv; w[k] = lv.w[e]; k++;
+            }
+        }
+        return csr(cn, Arrays.copyOf(s, k), Arrays.copyOf(d, k), Arrays.copyOf(w, k));
+    }
+
+    /** CSR symétrique (chaque arête dans les deux sens). */
+    private static Level csr(int n, int[] s, int[] d, double[] w) {
+        int[] deg = new int[n + 1];
+        for (int e = 0; e < s.length; e++) {
+            if (s[e] == d[e]) continue;
+            deg[s[e]]++; deg[d[e]]++;
+        }
+        int[] off = new int[n + 1];
+        for (int i = 0; i < n; i++) off[i + 1] = off[i] + deg[i];
+        int[] pos = Arrays.copyOf(off, n);
+        int[] adj = new int[off[n]];
+        double[] ww = new double[off[n]];
+        for (int e = 0; e < s.length; e++) {
+            if (s[e] == d[e]) continue;
+            double we = (w == null) ? 1.0 : w[e];
+            adj[pos[s[e]]] = d[e]; ww[pos[s[e]]++] = we;
+            adj[pos[d[e]]] = s[e]; ww[pos[d[e]]++] = we;
+        }
+        return new Level(n, off, adj, ww);
+    }
+
+    /* ====================== Fruchterman–Reingold + Barnes–Hut ====================== */
+
+    private void iterate(List<Level> levels, int l, double[] x, double[] y,
+                         int iterations, Listener listener) {
+        Level lv = levels.get(l);
+        int cnt = lv.n;
+        double k = edgeLength, k2 = k * k;
+        double[] fx = new double[cnt], fy = new double[cnt];
+        QuadTree qt = new QuadTree(cnt);
+        double temp = k * Math.max(1.0, Math.sqrt(cnt) / 4.0);
+        double cooling = Math.pow(0.02, 1.0 / iterations); // température finale = 2 % de l'initiale
+
+        for (int it = 0; it < iterations && !cancelled; it++) {
+            Arrays.fill(fx, 0);
+            Arrays.fill(fy, 0);
+
+            // répulsions (Barnes–Hut)
+            qt.build(x, y, cnt);
+            for (int i = 0; i < cnt; i++) qt.repulse(i, x, y, k2, fx, fy);
+
+            // attractions le long des arêtes
+            for (int u = 0; u < cnt; u++) {
+                for (int e = lv.off[u]; e < lv.off[u + 1]; e++) {
+                    int v = lv.adj[e];
+                    if (v < u) continue;
+                    double dx = x[u] - x[v], dy = y[u] - y[v];
+                    double dist = Math.sqrt(dx * dx + dy * dy) + 1e-9;
+                    double f = dist / k * lv.w[e];
+                    fx[u] -= dx * f; fy[u] -= dy * f;
+                    fx[v] += dx * f; fy[v] += dy * f;
+                }
+            }
+
+            // déplacement borné par la température
+            for (int i = 0; i < cnt; i++) {
+                double len = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]);
+                if (len < 1e-9) continue;
+                double step = Math.min(len, temp) / len;
+                x[i] += fx[i] * step;
+                y[i] += fy[i] * step;
+            }
+            temp *= cooling;
+
+            if (System.nanoTime() - lastPublish > PUBLISH_EVERY_NS) publish(levels, l, x, y, listener, false);
+        }
+    }
+
+    /** Projette les positions du niveau l vers les nœuds d'origine, recentre, et publie sur l'EDT. */
+    private void publish(List<Level> levels, int l, double[] x, double[] y,
+                         Listener listener, boolean done) {
+        lastPublish = System.nanoTime();
+        if (!done && !publishPending.compareAndSet(false, true)) return; // l'EDT n'a pas encore consommé
+
+        double[] px = new double[n], py = new double[n];
+        for (int i = 0; i < n; i++) {
+            int c = i;
+            for (int j = 0; j < l; j++) c = levels.get(j).toCoarse[c];
+            px[i] = x[c]; py[i] = y[c];
+        }
+        double mx = 0, my = 0;
+        for (int i = 0; i < n; i++) { mx += px[i]; my += py[i]; }
+        mx = (n == 0) ? 0 : mx / n; my = (n == 0) ? 0 : my / n;
+        for (int i = 0; i < n; i++) { px[i] += centerX - mx; py[i] += centerY - my; }
+
+        SwingUtilities.invokeLater(() -> {
+            publishPending.set(false);
+            if (!cancelled) listener.positions(px, py, done);
+        });
+    }
+
+    /** Quadtree à tableaux (réutilisé d'une itération à l'autre) : centres de masse pour Barnes–Hut. */
+    private static final class QuadTree {
+        private static final double MIN_HALF = 1e-3;
+        private int cap, size;
+        private int[] child, body;          // 4 enfants par nœud ; body : index, -1 vide, -2 interne/agrégé
+        private double[] cx, cy, half, sx, sy, mass;
+        private int[] stack;
+
+        QuadTree(int n) { ensure(Math.max(16, 4 * n + 4)); stack = new int[64]; }
+
+        private void ensure(int c) {
+            if (c <= cap) return;
+            cap = Math.max(c, cap * 2);
+            child = child == null ? new int[4 * cap] : Arrays.copyOf(child, 4 * cap);
+            body = body == null ? new int[cap] : Arrays.copyOf(body, cap);
+            cx = grow(cx); cy = grow(cy); half = grow(half);
+            sx = grow(sx); sy = grow(sy); mass = grow(mass);
+        }
+
+        private double[] grow(double[] a) { return a == null ? new double[cap] : Arrays.copyOf(a, cap); }
+
+        private int node(double x, double y, double h) {
+            ensure(size + 1);
+            int id = size++;
+            cx[id] = x; cy[id] = y; half[id] = h;
+            sx[id] = sy[id] = mass[id] = 0;
+            body[id] = -1;
+            Arrays.fill(child, 4 * id, 4 * id + 4, -1);
+            return id;
+        }
+
+        void build(double[] x, double[] y, int n) {
+            size = 0;
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, x[i]); maxX = Math.max(maxX, x[i]);
+                minY = Math.min(minY, y[i]); maxY = Math.max(maxY, y[i]);
+            }
+            if (n == 0) return;
+            double h = Math.max(maxX - minX, maxY - minY) / 2 + 1;
+            node((minX + maxX) / 2, (minY + maxY) / 2, h);
+            for (int i = 0; i < n; i++) insert(i, x[i], y[i], x, y);
+        }
+
+        private void insert(int i, double x, double y, double[] px, double[] py) {
+            int cur = 0;
+            while (true) {
+                sx[cur] += x; sy[cur] += y; mass[cur] += 1;
+                if (body[cur] == -1 && mass[cur] == 1) { body[cur] = i; return; } // feuille vide
+                if (body[cur] >= 0) {
+                    if (half[cur] < MIN_HALF) { body[cur] = -2; return; } // points confondus : agrégat
+                    int b = body[cur];
+                    body[cur] = -2;
+                    int q = quadrant(cur, px[b], py[b]);
+                    int c = childAt(cur, q);
+                    sx[c] += px[b]; sy[c] += py[b]; mass[c] += 1; body[c] = b;
+                } else if (half[cur] < MIN_HALF) {
+                    return; // agrégat
+                }
+                cur = childAt(cur, quadrant(cur, x, y));
+            }
+        }
+
+        private int quadrant(int nd, double x, double y) {
+            return (x >= cx[nd] ? 1 : 0) + (y >= cy[nd] ? 2 : 0);
+        }
+
+        private int childAt(int nd, int q) {
+            int c = child[4 * nd + q];
+            if (c >= 0) return c;
+            double h = half[nd] / 2;
+            c = node(cx[nd] + ((q & 1) == 1 ? h : -h), cy[nd] + ((q & 2) == 2 ? h : -h), h);
+            child[4 * nd + q] = c; // après node() : child a pu être réalloué
+            return c;
+        }
+
+        /** Force de répulsion k²/d exercée sur i par tout l'arbre. */
+        void repulse(int i, double[] x, double[] y, double k2, double[] fx, double[] fy) {
+            if (size == 0) return;
+            int sp = 0;
+            stack[sp++] = 0;
+            while (sp > 0) {
+                int nd = stack[--sp];
+                double m = mass[nd];
+                if (m == 0 || body[nd] == i) continue;
+                double dx = x[i] - sx[nd] / m, dy = y[i] - sy[nd] / m;
+                double d2 = dx * dx + dy * dy;
+                boolean leaf = body[nd] >= 0 || half[nd] < MIN_HALF;
+                double w = 2 * half[nd];
+                if (leaf || w * w < THETA * THETA * d2) {
+                    if (d2 < 1e-6) { // superposés : petite poussée déterministe
+                        dx = ((i * 31) % 7) - 3 + 0.5; dy = ((i * 17) % 5) - 2 + 0.5;
+                        d2 = dx * dx + dy * dy;
+                    }
+                    double f = k2 * m / d2;
+                    fx[i] += dx * f;
+                    fy[i] += dy * f;
+                } else {
+                    if (sp + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    for (int q = 0; q < 4; q++) {
+                        int c = child[4 * nd + q];
+                        if (c >= 0) stack[sp++] = c;
+                    }
+                }
+            }
+        }
+    }
+}
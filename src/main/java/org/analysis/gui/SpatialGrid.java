@@ -0,0 +1,143 @@
+package org.analysis.gui;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index spatial à grille uniforme (repère monde) pour les viewers de graphes.
+ * Chaque objet (id entier) est rangé dans les cellules que couvrent ses bornes ;
+ * un objet trop étendu (longue arête) va dans une liste à part, testée à chaque requête.
+ * Mise à jour incrémentale : put(id, ...) déplace l'objet, sans reconstruire la grille.
+ */
+final class SpatialGrid {
+
+    private static final int MAX_CELLS = 64; // au-delà : objet "large"
+
+    private final int cell;
+    private final Map<Long, Bucket> cells = new HashMap<>();
+    private final Bucket large = new Bucket();
+
+    // bornes de chaque id (x, y, w, h) ; w < 0 = absent
+    private int[] bx = new int[0], by = new int[0], bw = new int[0], bh = new int[0];
+    private boolean[] isLarge = new boolean[0];
+
+    /** Liste d'ids sans boxing (petite, suppression par échange avec le dernier). */
+    private static final class Bucket {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) { ids[i] = ids[--size]; return; }
+            }
+        }
+    }
+
+    SpatialGrid(int cellSize) { this.cell = cellSize; }
+
+    /** Insère ou déplace l'objet id. */
+    void put(int id, int x, int y, int w, int h) {
+        ensure(id + 1);
+        remove(id);
+        bx[id] = x; by[id] = y; bw[id] = w; bh[id] = h;
+        int c0 = Math.floorDiv(x, cell), c1 = Math.floorDiv(x + w, cell);
+        int r0 = Math.floorDiv(y, cell), r1 = Math.floorDiv(y + h, cell);
+        if ((long) (c1 - c0 + 1) * (r1 - r0 + 1) > MAX_CELLS) {
+            isLarge[id] = true;
+            large.add(id);
+            return;
+        }
+        for (int c = c0; c <= c1; c++)
+            for (int r = r0; r <= r1; r++)
+                cells.computeIfAbsent(key(c, r), k -> new Bucket()).add(id);
+    }
+
+    void remove(int id) {
+        if (id >= bw.length || bw[id] < 0) return;
+        if (isLarge[id]) {
+            large.remove(id);
+            isLarge[id] = false;
+        } else {
+            int c0 = Math.floorDiv(bx[id], cell), c1 = Math.floorDiv(bx[id] + bw[id], cell);
+            int r0 = Math.floorDiv(by[id], cell), r1 = Math.floorDiv(by[id] + bh[id], cell);
+            for (int c = c0; c <= c1; c++) {
+                for (int r = r0; r <= r1; r++) {
+                    Bucket b = cells.get(key(c, r));
+                    if (b == null) continue;
+                    b.remove(id);
+                    if (b.size == 0) cells.remove(key(c, r));
+                }
+            }
+        }
+        bw[id] = -1;
+    }
+
+    /** Plus petit id dont les bornes contiennent le point (même convention que Rectangle.contains), -1 sinon. */
+    int first(Point p) {
+        int best = -1;
+        Bucket b = cells.get(key(Math.floorDiv(p.x, cell), Math.floorDiv(p.y, cell)));
+        if (b != null) best = firstIn(b, p, best);
+        return firstIn(large, p, best);
+    }
+
+    private int firstIn(Bucket b, Point p, int best) {
+        for (int i = 0; i < b.size; i++) {
+            int id = b.ids[i];
+            if ((best < 0 || id < best)
+                    && p.x >= bx[id] && p.x < bx[id] + bw[id]
+                    && p.y >= by[id] && p.y < by[id] + bh[id]) best = id;
+        }
+        return best;
+    }
+
+    /** Remplit out avec les ids dont les bornes touchent r (bords inclus : arêtes horizontales/verticales). */
+    void query(Rectangle r, BitSet out) {
+        out.clear();
+        int c0 = Math.floorDiv(r.x, cell), c1 = Math.floorDiv(r.x + r.width, cell);
+        int r0 = Math.floorDiv(r.y, cell), r1 = Math.floorDiv(r.y + r.height, cell);
+        if ((long) (c1 - c0 + 1) * (r1 - r0 + 1) > cells.size()) {
+            // vue plus grande que la partie occupée de la grille : on parcourt les cellules existantes
+            for (Bucket b : cells.values()) collect(b, r, out);
+        } else {
+            for (int c = c0; c <= c1; c++) {
+                for (int rr = r0; rr <= r1; rr++) {
+                    Bucket b = cells.get(key(c, rr));
+                    if (b != null) collect(b, r, out);
+                }
+            }
+        }
+        collect(large, r, out);
+    }
+
+    private void collect(Bucket b, Rectangle r, BitSet out) {
+        for (int i = 0; i < b.size; i++) {
+            int id = b.ids[i];
+            if (bx[id] <= r.x + r.width && bx[id] + bw[id] >= r.x
+                    && by[id] <= r.y + r.height && by[id] + bh[id] >= r.y) out.set(id);
+        }
+    }
+
+    private void ensure(int n) {
+        if (n <= bw.length) return;
+        int cap = Math.max(n, bw.length * 2);
+        int old = bw.length;
+        bx = Arrays.copyOf(bx, cap);
+        by = Arrays.copyOf(by, cap);
+        bw = Arrays.copyOf(bw, cap);
+        bh = Arrays.copyOf(bh, cap);
+        isLarge = Arrays.copyOf(isLarge, cap);
+        Arrays.fill(bw, old, cap, -1);
+    }
+
+    private static long key(int c, int r) {
+        return ((long) c << 32) | (r & 0xFFFFFFFFL);
+    }
+}
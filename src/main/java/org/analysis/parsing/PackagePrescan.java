@@ -0,0 +1,218 @@
+package org.analysis.parsing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Pré-filtre de package avant parsing : lit seulement les premiers octets d'un fichier pour en
+ * extraire la déclaration "package" (commentaires et annotations ignorés).
+ *
+ * Chaque fichier est jugé sur sa propre déclaration : ni le chemin ni les voisins d'un fichier
+ * ne décident à sa place (un dossier peut mêler plusieurs packages, un dossier gen/ déclarer
+ * n'importe lequel), et le résultat ne dépend pas de l'ordre du système de fichiers.
+ * En cas de doute (déclaration illisible) le fichier est conservé et le parseur tranche comme avant.
+ */
+public final class PackagePrescan {
+
+    private static final int HEAD = 4096; // la déclaration de package tient presque toujours dedans
+
+    private PackagePrescan() {}
+
+    /** Le package 'pkg' est-il retenu par le préfixe (vide ou null = tout) ? */
+    public static boolean accepts(String pkg, String prefix) {
+        return prefix == null || prefix.isBlank() || pkg.startsWith(prefix);
+    }
+
+    /** Package déclaré par le fichier ("" = package par défaut), null si indéterminé. */
+    public static String packageOf(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(HEAD);
+        }
+        boolean complete = head.length < HEAD;
+        String pkg = scan(new String(head, StandardCharsets.UTF_8), complete);
+        if (pkg == null && !complete) pkg = scan(Files.readString(file, StandardCharsets.UTF_8), true);
+        return pkg;
+    }
+
+    /**
+     * Fichiers .java sous root dont le package peut correspondre au préfixe.
+     * Sans préfixe : tous les fichiers, sans lecture.
+     */
+    public static List<Path> listJavaFiles(Path root, String prefix) throws IOException {
+        return walk(root, prefix, false);
+    }
+
+    /**
+     * Entrées d'un modèle (Spoon) pour le préfixe : un dossier dont tous les fichiers du sous-arbre
+     * sont retenus est rendu tel quel ; ailleurs, les fichiers retenus un par un.
+     * Sans préfixe : root seul.
+     */
+    public static List<Path> sourceInputs(Path root, String prefix) throws IOException {
+        if (prefix == null || prefix.isBlank()) return List.of(root);
+        return walk(root, prefix, true);
+    }
+
+    /** Dossier en cours de visite : entrées retenues dessous. */
+    private static final class Dir {
+        final List<Path> entries = new ArrayList<>();
+        boolean whole = true;    // tous les fichiers du sous-arbre sont retenus
+        boolean any;             // au moins un fichier retenu dans le sous-arbre
+    }
+
+    private static List<Path> walk(Path root, String prefix, boolean wholeDirs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        boolean filter = prefix != null && !prefix.isBlank();
+        Deque<Dir> open = new ArrayDeque<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (filter) open.push(new Dir());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile() || !file.toString().endsWith(".java")) return FileVisitResult.CONTINUE;
+                String pkg = filter ? packageOf(file) : null;
+                boolean kept = pkg == null || accepts(pkg, prefix); // indéterminé : le parseur décidera
+                Dir d = open.peek();
+                if (d == null) { // sans filtre, ou root est un fichier
+                    if (kept) files.add(file);
+                } else if (kept) {
+                    d.entries.add(file);
+                    d.any = true;
+                } else {
+                    d.whole = false;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) throw e;
+                if (!filter) return FileVisitResult.CONTINUE;
+                Dir d = open.pop();
+                boolean asWhole = wholeDirs && d.whole && d.any;
+                Dir parent = open.peek();
+                if (parent == null) {
+                    if (asWhole) files.add(dir); else files.addAll(d.entries);
+                } else {
+                    if (asWhole) parent.entries.add(dir); else parent.entries.addAll(d.entries);
+                    parent.whole &= d.whole;
+                    parent.any |= d.any;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /* ---------- lecture de la déclaration ---------- */
+
+    /**
+     * Extrait le nom du package en tête de source. 'complete' : le texte est le fichier entier
+     * (sinon un texte épuisé avant la décision renvoie null pour relire plus loin).
+     */
+    static String scan(String s, boolean complete) {
+        int n = s.length();
+        int i = (n > 0 && s.charAt(0) == '\uFEFF') ? 1 : 0;
+        while (true) {
+            i = skipBlanks(s, i);
+            if (i < 0) return null;                    // commentaire non terminé
+            if (i >= n) return complete ? "" : null;   // fichier vide ou tête épuisée
+            char c = s.charAt(i);
+            if (c == '@') {
+                i = skipAnnotation(s, i + 1);
+                if (i < 0) return null;
+                continue;
+            }
+            if (!Character.isJavaIdentifierStart(c)) return null; // échappement unicode, ';' parasite... : au parseur
+            int end = identEnd(s, i);
+            if (end >= n && !complete) return null;
+            if (!s.startsWith("package", i) || end != i + 7) return ""; // import, class... : package par défaut
+            return qualifiedName(s, end);
+        }
+    }
+
+    /** Nom qualifié terminé par ';' à partir de i, null si mal formé ou tronqué. */
+    private static String qualifiedName(String s, int i) {
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            i = skipBlanks(s, i);
+            if (i < 0 || i >= s.length() || !Character.isJavaIdentifierStart(s.charAt(i))) return null;
+            int end = identEnd(s, i);
+            name.append(s, i, end);
+            i = skipBlanks(s, end);
+            if (i < 0 || i >= s.length()) return null;
+            char c = s.charAt(i++);
+            if (c == ';') return name.toString();
+            if (c != '.') return null;
+            name.append('.');
+        }
+    }
+
+    private static int identEnd(String s, int i) {
+        while (i < s.length() && Character.isJavaIdentifierPart(s.charAt(i))) i++;
+        return i;
+    }
+
+    /** Saute blancs et commentaires ; -1 si un commentaire bloc n'est pas terminé. */
+    private static int skipBlanks(String s, int i) {
+        int n = s.length();
+        while (i < n) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < n && s.charAt(i + 1) == '/') {
+                int eol = s.indexOf('\n', i + 2);
+                i = (eol < 0) ? n : eol + 1;
+            } else if (c == '/' && i + 1 < n && s.charAt(i + 1) == '*') {
+                int close = s.indexOf("*/", i + 2);
+                if (close < 0) return -1;
+                i = close + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /** Saute "@Nom.Qualifie(args)" (parenthèses équilibrées, littéraux respectés) ; -1 si tronqué. */
+    private static int skipAnnotation(String s, int i) {
+        i = skipBlanks(s, i);
+        while (i >= 0 && i < s.length() && Character.isJavaIdentifierStart(s.charAt(i))) {
+            i = skipBlanks(s, identEnd(s, i));
+            if (i < 0 || i >= s.length() || s.charAt(i) != '.') break;
+            i = skipBlanks(s, i + 1);
+        }
+        if (i < 0 || i >= s.length()) return -1;
+        if (s.charAt(i) != '(') return i;
+
+        int depth = 0, n = s.length();
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\'') {
+                i++;
+                while (i < n && s.charAt(i) != c) i += (s.charAt(i) == '\\') ? 2 : 1;
+                i++;
+            } else if (c == '/' && i + 1 < n && (s.charAt(i + 1) == '/' || s.charAt(i + 1) == '*')) {
+                i = skipBlanks(s, i);
+                if (i < 0) return -1;
+            } else {
+                if (c == '(') depth++;
+                else if (c == ')' && --depth == 0) return i + 1;
+                i++;
+            }
+        }
+        return -1;
+    }
+}
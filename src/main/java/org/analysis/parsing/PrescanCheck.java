@@ -0,0 +1,64 @@
+package org.analysis.parsing;
+
+import org.analysis.processing.model.CallGraph;
+import org.analysis.processing.model.SymbolTable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Vérification du pré-filtre de package, lancée par "mvn test" (voir pom.xml) : un arbre dont un
+ * dossier mêle plusieurs packages est analysé avec un préfixe par JDT (SourceParser) puis par Spoon
+ * (SpoonSourceParser) ; les deux doivent retenir exactement les classes du préfixe.
+ */
+public final class PrescanCheck {
+
+    private PrescanCheck() {}
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("prescan-check");
+        try {
+            // dossier mixte : six fichiers d'un autre package avant (ou après) celui qui compte
+            for (int i = 1; i <= 6; i++) write(root, "org/other/O" + i, "org.other");
+            write(root, "org/other/K", "org.keep");
+            write(root, "org/keep/A", "org.keep");
+            write(root, "gen/G", "org.keep.gen"); // disposition non conventionnelle
+
+            Set<String> expected = new TreeSet<>(Set.of("org.keep.K", "org.keep.A", "org.keep.gen.G"));
+            Set<String> jdt = classes(new SourceParser().parseAll(root, "org.keep").callGraph);
+            Set<String> spoon = classes(new SpoonSourceParser().parseAll(root, "org.keep").callGraph);
+
+            if (!jdt.equals(expected) || !spoon.equals(expected)) {
+                throw new IllegalStateException("pré-filtre : attendu " + expected + ", JDT " + jdt + ", Spoon " + spoon);
+            }
+            System.out.println("pré-filtre OK : JDT et Spoon retiennent " + expected);
+        } finally {
+            try (Stream<Path> all = Files.walk(root)) {
+                for (Path p : all.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /** Une classe d'une méthode dans le package donné. */
+    private static void write(Path root, String path, String pkg) throws IOException {
+        Path file = root.resolve(path + ".java");
+        Files.createDirectories(file.getParent());
+        String cls = file.getFileName().toString().replace(".java", "");
+        Files.writeString(file, "package " + pkg + ";\n\npublic class " + cls + " {\n    void run() { }\n}\n",
+                StandardCharsets.UTF_8);
+    }
+
+    /** Classes des méthodes déclarées (nœuds du graphe d'appels). */
+    private static Set<String> classes(CallGraph g) {
+        SymbolTable sym = g.symbols();
+        Set<String> out = new TreeSet<>();
+        for (int a = 0; a < g.nodeCount(); a++) out.add(sym.classFqn(sym.methodClass(g.methodAt(a))));
+        return out;
+    }
+}
@@ -3,6 +3,7 @@ package org.analysis.parsing;
 import org.analysis.processing.model.ProjectStats;
 import org.analysis.visitors.CallGraphVisitor;
 import org.analysis.visitors.ClassVisitor;
+import org.analysis.visitors.MethodVisitor;
 import org.analysis.visitors.PackageVisitor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
@@ -13,20 +14,33 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class SourceParser {
 
+    /**
+     * Suivi d'avancement : appelé après chaque fichier avec les stats partielles.
+     * Renvoie false pour interrompre l'analyse (les stats déjà remplies sont conservées).
+     */
+    public interface Progress {
+        boolean fileParsed(int done, int total, ProjectStats partial);
+    }
+
     /** Parcourt tout un dossier (avec filtre de package optionnel). */
     public ProjectStats parseAll(Path root, String packagePrefix) throws IOException {
-        ProjectStats stats = new ProjectStats();
-        try (var stream = Files.walk(root)) {
-            for (Path p : (Iterable<Path>) stream.filter(f -> f.toString().endsWith(".java"))::iterator) {
-                parseOneFileInto(stats, root, p, packagePrefix);
-            }
-        }
-        return stats;
+        return parseAll(root, packagePrefix, null);
+    }
+
+    /**
+     * Idem avec suivi d'avancement. Les dossiers et fichiers hors préfixe sont écartés par
+     * PackagePrescan avant tout parsing (le total ne compte que les fichiers retenus).
+     */
+    public ProjectStats parseAll(Path root, String packagePrefix, Progress progress) throws IOException {
+        List<Path> files = PackagePrescan.listJavaFiles(root, packagePrefix);
+        return parse(root, files, packagePrefix, progress);
     }
 
     /** Compatibilité avec AnalysisRunner : liste précise de fichiers. */
@@ -42,18 +56,42 @@ public class SourceParser {
             root = root.getParent();
         }
         if (root == null) root = Path.of("src/main/java").toAbsolutePath();
+        return parseFiles(root, javaFiles, packagePrefix, null);
+    }
 
-        ProjectStats stats = new ProjectStats();
+    /**
+     * Liste de fichiers déjà connue (pas de second parcours du dossier), racine explicite
+     * pour la résolution des bindings, et suivi d'avancement optionnel.
+     */
+    public ProjectStats parseFiles(Path root, List<Path> javaFiles, String packagePrefix, Progress progress) throws IOException {
+        if (javaFiles == null) return new ProjectStats();
+        // liste quelconque : on lit l'en-tête de chaque fichier avant de le confier au parseur
+        List<Path> retained = new ArrayList<>(javaFiles.size());
         for (Path p : javaFiles) {
             if (p == null || !p.toString().endsWith(".java")) continue;
-            parseOneFileInto(stats, root, p, packagePrefix);
+            String pkg = (packagePrefix == null || packagePrefix.isBlank()) ? null : PackagePrescan.packageOf(p);
+            if (pkg == null || PackagePrescan.accepts(pkg, packagePrefix)) retained.add(p);
+        }
+        return parse(root, retained, packagePrefix, progress);
+    }
+
+    private ProjectStats parse(Path root, List<Path> javaFiles, String packagePrefix, Progress progress) throws IOException {
+        ProjectStats stats = new ProjectStats();
+        stats.retainMethods = false; // métriques des méthodes : l'agrégateur suffit
+        Map<String, Integer> calleeByKey = new HashMap<>(); // bindings -> méthodes, partagé entre fichiers
+        int total = javaFiles.size(), done = 0;
+        for (Path p : javaFiles) {
+            parseOneFileInto(stats, root, p, packagePrefix, calleeByKey);
+            done++;
+            if (progress != null && !progress.fileParsed(done, total, stats)) break;
         }
         return stats;
     }
 
     /* -------------------- core -------------------- */
 
-    private void parseOneFileInto(ProjectStats stats, Path projectSourceRoot, Path file, String packagePrefix) throws IOException {
+    private void parseOneFileInto(ProjectStats stats, Path projectSourceRoot, Path file, String packagePrefix,
+                                  Map<String, Integer> calleeByKey) throws IOException {
         String src = Files.readString(file, StandardCharsets.UTF_8);
 
         ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
@@ -85,7 +123,7 @@ public class SourceParser {
 
         CompilationUnit cu = (CompilationUnit) parser.createAST(null);
 
-        // Filtrage package (si demandé)
+        // Filtrage package (si demandé) : filet de sécurité quand le pré-filtre n'a pas pu trancher
         var pkg = cu.getPackage();
         String pkgName = (pkg == null || pkg.getName() == null) ? "" : pkg.getName().getFullyQualifiedName();
         if (packagePrefix != null && !packagePrefix.isBlank() && !pkgName.startsWith(packagePrefix)) {
@@ -95,6 +133,8 @@ public class SourceParser {
         PackageVisitor pv = new PackageVisitor(stats);
         cu.accept(pv);
         cu.accept(new ClassVisitor(stats, pv));
-        cu.accept(new CallGraphVisitor(stats, pv));
+        cu.accept(new MethodVisitor(stats, pv));
+        cu.accept(new CallGraphVisitor(stats, pv, calleeByKey));
+        stats.metrics.endFile();
     }
 }
@@ -1,67 +1,71 @@
 package org.analysis.parsing;
 
-import org.analysis.processing.model.ProjectStats;
 import org.analysis.processing.model.CallGraph;
+import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.SymbolTable;
 
 import spoon.Launcher;
 import spoon.reflect.CtModel;
+import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.declaration.*;
 import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.CtScanner;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Parser basé sur Spoon.
- * - Construit un call-graph méthode->méthode (signature "fqcn#method").
- * - Renseigne ProjectStats et ALIMENTE CallGraph sans présumer de son API
- *   (utilise des tentatives via réflexion : addEdge/add/asMap).
+ * - Construit un call-graph méthode->méthode (méthode = classe, nom, paramètres effacés ;
+ *   constructeurs "&lt;init&gt;" comme avec JDT, appels new X(..) compris).
+ * - Classes et méthodes passent par la SymbolTable de ProjectStats (ids, FQN canoniques) ;
+ *   le CallGraph est alimenté directement en ids.
  */
 public class SpoonSourceParser {
 
     /** Analyse tout le dossier 'root' en filtrant par 'pkgPrefix' (si non vide). */
     public ProjectStats parseAll(Path root, String pkgPrefix) {
-        // 1) Construire le modèle Spoon
+        // 1) Construire le modèle Spoon, limité aux dossiers/fichiers du préfixe :
+        //    les types hors périmètre restent des références (mode noclasspath), résolues à la demande
         Launcher launcher = new Launcher();
         launcher.getEnvironment().setNoClasspath(true);      // tolère les deps manquantes
         launcher.getEnvironment().setComplianceLevel(17);    // adapte si besoin (11/17/21)
-        launcher.addInputResource(root.toString());
+        for (Path input : inputs(root, pkgPrefix)) launcher.addInputResource(input.toString());
         launcher.buildModel();
 
         CtModel model = launcher.getModel();
 
-        // 2) Collecte edges "callerSig" -> {calleeSig}
-        final Map<String, Set<String>> edges = new LinkedHashMap<>();
-        final Set<String> classes = new LinkedHashSet<>();
+        ProjectStats stats = new ProjectStats();
+        SymbolTable symbols = stats.symbols;
+
+        // 2) Call-graph alimenté directement : un addEdge par site d'appel (poids = multiplicité)
+        final CallGraph callGraph = stats.callGraph;
 
         CtScanner scanner = new CtScanner() {
-            String currentCallerSig = null;   // "fqcn#method"
-            String currentCallerClass = null; // "fqcn"
+            int currentCaller = -1;                                      // id de "fqcn#method"
+            final Map<CtType<?>, Integer> typeIds = new IdentityHashMap<>(); // FQN calculé une fois par type
+
+            private int classOf(CtType<?> type) {
+                return typeIds.computeIfAbsent(type, t -> symbols.classOfFqn(t.getQualifiedName()));
+            }
 
             @Override
             public <T> void visitCtMethod(CtMethod<T> m) {
                 CtType<?> parent = m.getParent(CtType.class);
                 if (parent == null) return;
 
-                String classFqn = parent.getQualifiedName();
-                if (!acceptPkg(classFqn, pkgPrefix)) return;
+                int cls = classOf(parent);
+                if (!acceptPkg(symbols.classFqn(cls), pkgPrefix)) return;
 
-                String sig = classFqn + "#" + m.getSimpleName();
-                currentCallerSig = sig;
-                currentCallerClass = classFqn;
-                classes.add(classFqn);
-
-                edges.computeIfAbsent(sig, k -> new LinkedHashSet<>());
+                currentCaller = symbols.method(cls, m.getSimpleName(), paramsOf(m));
+                callGraph.addNode(currentCaller);
 
                 super.visitCtMethod(m);
 
-                currentCallerSig = null;
-                currentCallerClass = null;
+                currentCaller = -1;
             }
 
             @Override
@@ -69,43 +73,73 @@ public class SpoonSourceParser {
                 CtType<?> parent = c.getParent(CtType.class);
                 if (parent == null) return;
 
-                String classFqn = parent.getQualifiedName();
-                if (!acceptPkg(classFqn, pkgPrefix)) return;
-
-                // on nomme le constructeur "Class#Class"
-                String sig = classFqn + "#" + parent.getSimpleName();
-                currentCallerSig = sig;
-                currentCallerClass = classFqn;
-                classes.add(classFqn);
+                int cls = classOf(parent);
+                if (!acceptPkg(symbols.classFqn(cls), pkgPrefix)) return;
 
-                edges.computeIfAbsent(sig, k -> new LinkedHashSet<>());
+                // même convention que JDT : "Class#<init>(..)"
+                currentCaller = symbols.method(cls, SymbolTable.INIT, paramsOf(c));
+                callGraph.addNode(currentCaller);
 
                 super.visitCtConstructor(c);
 
-                currentCallerSig = null;
-                currentCallerClass = null;
+                currentCaller = -1;
             }
 
             @Override
             public <T> void visitCtInvocation(CtInvocation<T> inv) {
-                if (currentCallerSig == null) {
+                if (currentCaller < 0) {
                     super.visitCtInvocation(inv);
                     return;
                 }
 
-                CtExecutableReference<?> exec = inv.getExecutable();
-                String calleeFqn  = safeDeclaringType(exec, inv);
+                addCall(inv.getExecutable(), safeDeclaringType(inv.getExecutable(), inv));
+
+                super.visitCtInvocation(inv);
+            }
+
+            @Override
+            public <T> void visitCtConstructorCall(CtConstructorCall<T> call) {
+                if (currentCaller >= 0) {
+                    CtTypeReference<?> type = call.getType();
+                    String fqn = safeDeclaringType(call.getExecutable(), null);
+                    addCall(call.getExecutable(), fqn != null ? fqn : (type != null ? type.getQualifiedName() : null));
+                }
+                super.visitCtConstructorCall(call);
+            }
+
+            private void addCall(CtExecutableReference<?> exec, String calleeFqn) {
+                if (calleeFqn == null || !acceptPkg(calleeFqn, pkgPrefix)) return;
                 String calleeName = (exec != null && exec.getSimpleName() != null)
                         ? exec.getSimpleName()
                         : "unknown";
+                int params = (exec != null) ? paramsOf(exec.getParameters()) : SymbolTable.UNKNOWN_PARAMS;
+                int callee = symbols.method(symbols.classOfFqn(calleeFqn), calleeName, params);
+                callGraph.addEdge(currentCaller, callee);
+            }
 
-                if (calleeFqn != null && acceptPkg(calleeFqn, pkgPrefix)) {
-                    String calleeSig = calleeFqn + "#" + calleeName;
-                    edges.computeIfAbsent(currentCallerSig, k -> new LinkedHashSet<>()).add(calleeSig);
-                    classes.add(calleeFqn);
-                }
+            private int paramsOf(CtExecutable<?> e) {
+                List<CtTypeReference<?>> types = new ArrayList<>();
+                for (CtParameter<?> p : e.getParameters()) types.add(p.getType());
+                return paramsOf(types);
+            }
 
-                super.visitCtInvocation(inv);
+            /** Id des paramètres (texte des effacements, interné par la SymbolTable). */
+            private int paramsOf(List<CtTypeReference<?>> types) {
+                StringJoiner text = new StringJoiner(",");
+                for (CtTypeReference<?> t : types) text.add(erasure(t));
+                return symbols.params(text.toString());
+            }
+
+            /** Nom simple de l'effacement (même forme que JDT : "List", "Object", "int[]"). */
+            private String erasure(CtTypeReference<?> t) {
+                if (t == null) return "?";
+                try {
+                    CtTypeReference<?> e = t.getTypeErasure();
+                    if (e != null) t = e;
+                } catch (Exception ignore) {
+                    // noclasspath : on garde la référence telle quelle
+                }
+                return t.getSimpleName();
             }
 
             private boolean acceptPkg(String fqn, String prefix) {
@@ -157,122 +191,15 @@ public class SpoonSourceParser {
         // Parcours du modèle (au lieu de model.processWith(...))
         model.getRootPackage().accept(scanner);
 
-        // 3) Remplir ProjectStats et alimenter le CallGraph existant
-        ProjectStats stats = new ProjectStats();
-
-        CallGraph cg = obtainCallGraph(stats);
-        if (cg == null) {
-            // Dernier recours : on tente d'en créer un vide si constructeur no-arg dispo
-            cg = tryInstantiateEmptyCallGraph();
-            if (cg != null) setCallGraph(stats, cg);
-        }
-
-        // Si malgré tout on n'a pas de CallGraph, on retourne stats "vides"
-        if (cg == null) {
-            return stats;
-        }
-
-        // Alimenter le call graph : on tente addEdge / add / asMap
-        for (var e : edges.entrySet()) {
-            String caller = e.getKey();
-            for (String callee : e.getValue()) {
-                if (!addEdgeReflective(cg, caller, callee)) {
-                    // fallback : si asMap existe, on pousse directement dans la Map
-                    Map<String, Set<String>> map = tryAsMap(cg);
-                    if (map != null) {
-                        map.computeIfAbsent(caller, k -> new LinkedHashSet<>()).add(callee);
-                    }
-                }
-            }
-        }
-
-        // (optionnel) renseigner un compteur de classes s'il existe
-        try {
-            Field f = ProjectStats.class.getDeclaredField("classCount");
-            f.setAccessible(true);
-            f.set(stats, classes.size());
-        } catch (Exception ignore) {}
-
         return stats;
     }
 
-    /* ===================== Helpers CallGraph via réflexion ===================== */
-
-    private CallGraph obtainCallGraph(ProjectStats stats) {
-        try {
-            // champ direct
-            Field f = ProjectStats.class.getDeclaredField("callGraph");
-            f.setAccessible(true);
-            Object obj = f.get(stats);
-            if (obj instanceof CallGraph) return (CallGraph) obj;
-        } catch (Exception ignore) {}
-
-        try {
-            // getter éventuel
-            Method m = ProjectStats.class.getMethod("getCallGraph");
-            Object obj = m.invoke(stats);
-            if (obj instanceof CallGraph) return (CallGraph) obj;
-        } catch (Exception ignore) {}
-
-        return null;
-    }
-
-    private void setCallGraph(ProjectStats stats, CallGraph cg) {
-        try {
-            Field f = ProjectStats.class.getDeclaredField("callGraph");
-            f.setAccessible(true);
-            f.set(stats, cg);
-        } catch (Exception ignore) {
-            // si on ne peut pas setter, on fait au mieux avec obtainCallGraph()
-        }
-    }
-
-    private CallGraph tryInstantiateEmptyCallGraph() {
-        try {
-            return CallGraph.class.getDeclaredConstructor().newInstance();
-        } catch (Exception ignore) {
-            return null;
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Set<String>> tryAsMap(CallGraph cg) {
-        try {
-            Method m = cg.getClass().getMethod("asMap");
-            Object res = m.invoke(cg);
-            if (res instanceof Map) return (Map<String, Set<String>>) res;
-        } catch (Exception ignore) {}
-        return null;
-    }
-
-    /** Tente d'appeler addEdge(caller, callee) ou add(caller, callee). */
-    private boolean addEdgeReflective(CallGraph cg, String caller, String callee) {
-        try {
-            Method m = findMethod(cg.getClass(), "addEdge", String.class, String.class);
-            if (m != null) {
-                m.invoke(cg, caller, callee);
-                return true;
-            }
-        } catch (Exception ignore) {}
-
-        try {
-            Method m = findMethod(cg.getClass(), "add", String.class, String.class);
-            if (m != null) {
-                m.invoke(cg, caller, callee);
-                return true;
-            }
-        } catch (Exception ignore) {}
-
-        return false;
-    }
-
-    private Method findMethod(Class<?> type, String name, Class<?>... params) {
+    /** Entrées du modèle ; en cas d'échec du pré-filtre, tout l'arbre comme avant. */
+    private static List<Path> inputs(Path root, String pkgPrefix) {
         try {
-            Method m = type.getMethod(name, params);
-            m.setAccessible(true);
-            return m;
-        } catch (Exception ignore) {
-            return null;
+            return PackagePrescan.sourceInputs(root, pkgPrefix);
+        } catch (IOException | RuntimeException e) {
+            return List.of(root);
         }
     }
 }
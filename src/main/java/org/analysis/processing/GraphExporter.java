@@ -0,0 +1,233 @@
+package org.analysis.processing;
+
+import org.analysis.processing.model.CallGraph;
+import org.analysis.processing.model.ClassCouplingGraph;
+import org.analysis.processing.model.SymbolTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * Export en flux du graphe de méthodes et du graphe de couplage classe->classe vers un Writer :
+ * chaque nœud et chaque arête est écrit dès qu'il est lu, aucun document n'est construit en mémoire
+ * (ni signature mise en cache : les libellés sont écrits morceau par morceau depuis la SymbolTable).
+ * Mémoire : O(1) pour les méthodes, un bit par classe pour le couplage.
+ *
+ * Formats : DOT (Graphviz), GraphML, JSON Lines (un objet nœud ou arête par ligne),
+ * Matrix Market (coordonnées, indices 1..n, libellés en commentaires).
+ * Le Writer n'est pas fermé ; l'envelopper dans un tampon (voir open).
+ */
+public final class GraphExporter {
+
+    public enum Format {
+        DOT("dot"), GRAPHML("graphml"), JSONL("jsonl"), MTX("mtx");
+
+        public final String extension;
+        Format(String extension) { this.extension = extension; }
+
+        public static Format of(String name) {
+            for (Format f : values()) if (f.extension.equalsIgnoreCase(name) || f.name().equalsIgnoreCase(name)) return f;
+            throw new IllegalArgumentException("format inconnu : " + name + " (dot | graphml | jsonl | mtx)");
+        }
+    }
+
+    private GraphExporter() {}
+
+    /** Writer UTF-8 tamponné sur un fichier (le tampon borne la mémoire quelle que soit la taille). */
+    public static Writer open(Path file) throws IOException {
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    /* ---------- graphe de méthodes ---------- */
+
+    public static void writeCallGraph(CallGraph g, Format format, Writer w) throws IOException {
+        writeCallGraph(g, cls -> true, format, w);
+    }
+
+    /**
+     * Nœuds = méthodes des classes retenues, arêtes entre deux méthodes retenues, poids = sites d'appel.
+     * Ids des nœuds = nœuds denses du CallGraph (MTX : id + 1, dimension = nodeCount()).
+     */
+    public static void writeCallGraph(CallGraph g, IntPredicate acceptClass, Format format, Writer w) throws IOException {
+        SymbolTable sym = g.symbols();
+        int n = g.nodeCount();
+        IntPredicate accept = a -> acceptClass.test(sym.methodClass(g.methodAt(a)));
+
+        switch (format) {
+            case DOT -> w.write("digraph calls {\n");
+            case GRAPHML -> {
+                graphmlHeader(w);
+                w.write("  <key id=\"sites\" for=\"edge\" attr.name=\"sites\" attr.type=\"int\"/>\n");
+                w.write("  <graph id=\"calls\" edgedefault=\"directed\">\n");
+            }
+            case JSONL -> { }
+            case MTX -> {
+                w.write("%%MatrixMarket matrix coordinate integer general\n");
+                w.write("% graphe d'appels : ligne = appelant, colonne = appelé, valeur = sites d'appel\n");
+            }
+        }
+
+        // nœuds
+        for (int a = 0; a < n; a++) {
+            if (!accept.test(a)) continue;
+            int m = g.methodAt(a);
+            switch (format) {
+                case DOT -> { w.write("  n" + a + " [label=\""); methodLabel(sym, m, w, format); w.write("\"];\n"); }
+                case GRAPHML -> { w.write("    <node id=\"n" + a + "\"><data key=\"label\">"); methodLabel(sym, m, w, format); w.write("</data></node>\n"); }
+                case JSONL -> { w.write("{\"type\":\"node\",\"id\":" + a + ",\"label\":\""); methodLabel(sym, m, w, format); w.write("\"}\n"); }
+                case MTX -> { w.write("% " + (a + 1) + " "); methodLabel(sym, m, w, format); w.write('\n'); }
+            }
+        }
+        if (format == Format.MTX) { // ligne de taille après les commentaires : un passage de comptage
+            long nnz = 0;
+            for (int a = 0; a < n; a++) {
+                if (!accept.test(a)) continue;
+                for (int k = 0; k < g.outDegree(a); k++) if (accept.test(g.target(a, k))) nnz++;
+            }
+            w.write(n + " " + n + " " + nnz + "\n");
+        }
+
+        // arêtes
+        int e = 0;
+        for (int a = 0; a < n; a++) {
+            if (!accept.test(a)) continue;
+            for (int k = 0; k < g.outDegree(a); k++) {
+                int b = g.target(a, k);
+                if (!accept.test(b)) continue;
+                int sites = g.callSitesAt(a, k);
+                switch (format) {
+                    case DOT -> w.write("  n" + a + " -> n" + b + " [weight=" + sites + "];\n");
+                    case GRAPHML -> w.write("    <edge id=\"e" + (e++) + "\" source=\"n" + a + "\" target=\"n" + b
+                            + "\"><data key=\"sites\">" + sites + "</data></edge>\n");
+                    case JSONL -> w.write("{\"type\":\"edge\",\"source\":" + a + ",\"target\":" + b + ",\"sites\":" + sites + "}\n");
+                    case MTX -> w.write((a + 1) + " " + (b + 1) + " " + sites + "\n");
+                }
+            }
+        }
+        footer(format, w);
+    }
+
+    /* ---------- couplage classe->classe ---------- */
+
+    /**
+     * Arêtes A -> B entre classes retenues avec poids w (paires ou sites) et ratio c = w / T,
+     * T = somme des poids retenus. Deux passes sur les arêtes de classes (T, puis écriture).
+     * Ids des nœuds = ids de classe de la SymbolTable (MTX : id + 1, dimension = classCount()).
+     */
+    public static void writeCouplingGraph(CallGraph g, IntPredicate acceptClass, boolean callSites,
+                                          Format format, Writer w) throws IOException {
+        SymbolTable sym = g.symbols();
+        ClassCouplingGraph cg = g.classGraph();
+        BitSet used = new BitSet(sym.classCount());
+        long total = 0, edges = 0;
+        for (int e = 0; e < cg.edgeCount(); e++) {
+            if (!acceptClass.test(cg.source(e)) || !acceptClass.test(cg.target(e))) continue;
+            used.set(cg.source(e));
+            used.set(cg.target(e));
+            total += cg.weight(e, callSites);
+            edges++;
+        }
+
+        switch (format) {
+            case DOT -> w.write("digraph coupling {\n");
+            case GRAPHML -> {
+                graphmlHeader(w);
+                w.write("  <key id=\"w\" for=\"edge\" attr.name=\"weight\" attr.type=\"int\"/>\n");
+                w.write("  <key id=\"c\" for=\"edge\" attr.name=\"ratio\" attr.type=\"double\"/>\n");
+                w.write("  <graph id=\"coupling\" edgedefault=\"directed\">\n");
+            }
+            case JSONL -> { }
+            case MTX -> {
+                w.write("%%MatrixMarket matrix coordinate integer general\n");
+                w.write("% couplage : ligne = classe appelante, colonne = classe appelée, valeur = "
+                        + (callSites ? "sites d'appel" : "paires de méthodes") + ", T = " + total + "\n");
+            }
+        }
+
+        for (int c = used.nextSetBit(0); c >= 0; c = used.nextSetBit(c + 1)) {
+            String fqn = sym.classFqn(c);
+            switch (format) {
+                case DOT -> { w.write("  c" + c + " [label=\""); escape(fqn, w, format); w.write("\"];\n"); }
+                case GRAPHML -> { w.write("    <node id=\"c" + c + "\"><data key=\"label\">"); escape(fqn, w, format); w.write("</data></node>\n"); }
+                case JSONL -> { w.write("{\"type\":\"node\",\"id\":" + c + ",\"label\":\""); escape(fqn, w, format); w.write("\"}\n"); }
+                case MTX -> { w.write("% " + (c + 1) + " "); escape(fqn, w, format); w.write('\n'); }
+            }
+        }
+        if (format == Format.MTX) w.write(sym.classCount() + " " + sym.classCount() + " " + edges + "\n");
+
+        for (int e = 0; e < cg.edgeCount(); e++) {
+            int a = cg.source(e), b = cg.target(e);
+            if (!acceptClass.test(a) || !acceptClass.test(b)) continue;
+            int weight = cg.weight(e, callSites);
+            String ratio = String.format(Locale.US, "%.6f", (total == 0) ? 0d : weight / (double) total);
+            switch (format) {
+                case DOT -> w.write("  c" + a + " -> c" + b + " [weight=" + weight + ", label=\"" + ratio + "\"];\n");
+                case GRAPHML -> w.write("    <edge id=\"e" + e + "\" source=\"c" + a + "\" target=\"c" + b
+                        + "\"><data key=\"w\">" + weight + "</data><data key=\"c\">" + ratio + "</data></edge>\n");
+                case JSONL -> w.write("{\"type\":\"edge\",\"source\":" + a + ",\"target\":" + b
+                        + ",\"weight\":" + weight + ",\"ratio\":" + ratio + "}\n");
+                case MTX -> w.write((a + 1) + " " + (b + 1) + " " + weight + "\n");
+            }
+        }
+        footer(format, w);
+    }
+
+    /* ---------- écriture ---------- */
+
+    private static void graphmlHeader(Writer w) throws IOException {
+        w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        w.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        w.write("  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>\n");
+    }
+
+    private static void footer(Format format, Writer w) throws IOException {
+        switch (format) {
+            case DOT -> w.write("}\n");
+            case GRAPHML -> w.write("  </graph>\n</graphml>\n");
+            default -> { }
+        }
+    }
+
+    /** Même texte que SymbolTable.signature, écrit par morceaux (sans remplir son cache). */
+    private static void methodLabel(SymbolTable sym, int m, Writer w, Format format) throws IOException {
+        escape(sym.classFqn(sym.methodClass(m)), w, format);
+        w.write('#');
+        escape(sym.nameOf(sym.methodName(m)), w, format);
+        if (sym.methodParams(m) != SymbolTable.UNKNOWN_PARAMS) {
+            w.write('(');
+            escape(sym.paramList(sym.methodParams(m)), w, format);
+            w.write(')');
+        }
+    }
+
+    /** Échappement propre au format (guillemets DOT, entités XML, chaînes JSON ; MTX : fin de ligne). */
+    private static void escape(String s, Writer w, Format format) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (format) {
+                case DOT -> { if (c == '"' || c == '\\') w.write('\\'); w.write(c); }
+                case GRAPHML -> {
+                    switch (c) {
+                        case '&' -> w.write("&amp;");
+                        case '<' -> w.write("&lt;");
+                        case '>' -> w.write("&gt;");
+                        case '"' -> w.write("&quot;");
+                        default -> w.write(c);
+                    }
+                }
+                case JSONL -> {
+                    if (c == '"' || c == '\\') { w.write('\\'); w.write(c); }
+                    else if (c < 0x20) w.write(String.format("\\u%04x", (int) c));
+                    else w.write(c);
+                }
+                case MTX -> w.write(c == '\n' || c == '\r' ? ' ' : c);
+            }
+        }
+    }
+}
@@ -1,24 +1,33 @@
 package org.analysis.processing;
 
+import java.io.PrintWriter;
+
 /** Affiche proprement les résultats dans la console. */
 public class ResultPrinter {
 
     public static void print(StatisticsService.Answers a) {
-        System.out.println("=== Résultats de l'analyse ===");
-        System.out.println("1)  # Classes                         : " + a.nbClasses());
-        System.out.println("2)  # Lignes de code (LOC)            : " + a.nbLOC());
-        System.out.println("3)  # Méthodes                        : " + a.nbMethods());
-        System.out.println("4)  # Packages                        : " + a.nbPackages());
-        System.out.println("5)  Moyenne méthodes / classe         : " + a.avgMethodsPerClass());
-        System.out.println("6)  Moyenne LOC / méthode             : " + a.avgLocPerMethod());
-        System.out.println("7)  Moyenne attributs / classe        : " + a.avgFieldsPerClass());
-        System.out.println("8)  Top 10% classes (# méthodes)      : " + a.top10pctByMethods());
-        System.out.println("9)  Top 10% classes (# attributs)     : " + a.top10pctByFields());
-        System.out.println("10) Intersection (8 ∩ 9)              : " + a.intersectionTop10pct());
-        System.out.println("11) Classes avec > X méthodes         : " + a.classesMoreThanXMethods());
-        System.out.println("12) Top 10% méthodes par classe (LOC) :");
+        PrintWriter out = new PrintWriter(System.out);
+        print(a, out);
+        out.flush();
+    }
+
+    /** Idem vers un flux quelconque (fichier de rapport, etc.) ; le flux n'est ni vidé ni fermé. */
+    public static void print(StatisticsService.Answers a, PrintWriter out) {
+        out.println("=== Résultats de l'analyse ===");
+        out.println("1)  # Classes                         : " + a.nbClasses());
+        out.println("2)  # Lignes de code (LOC)            : " + a.nbLOC());
+        out.println("3)  # Méthodes                        : " + a.nbMethods());
+        out.println("4)  # Packages                        : " + a.nbPackages());
+        out.println("5)  Moyenne méthodes / classe         : " + a.avgMethodsPerClass());
+        out.println("6)  Moyenne LOC / méthode             : " + a.avgLocPerMethod());
+        out.println("7)  Moyenne attributs / classe        : " + a.avgFieldsPerClass());
+        out.println("8)  Top 10% classes (# méthodes)      : " + a.top10pctByMethods());
+        out.println("9)  Top 10% classes (# attributs)     : " + a.top10pctByFields());
+        out.println("10) Intersection (8 ∩ 9)              : " + a.intersectionTop10pct());
+        out.println("11) Classes avec > X méthodes         : " + a.classesMoreThanXMethods());
+        out.println("12) Top 10% méthodes par classe (LOC) :");
         a.top10pctLongestMethodsPerClass().forEach((cls, list) ->
-                System.out.println("    - " + cls + " -> " + list));
-        System.out.println("13) Max # paramètres d'une méthode    : " + a.maxParameters());
+                out.println("    - " + cls + " -> " + list));
+        out.println("13) Max # paramètres d'une méthode    : " + a.maxParameters());
     }
 }
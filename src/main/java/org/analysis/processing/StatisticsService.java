@@ -1,15 +1,38 @@
 package org.analysis.processing;
 
 import org.analysis.processing.model.ClassInfo;
-import org.analysis.processing.model.MethodInfo;
+import org.analysis.processing.model.MethodTable;
 import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.TopK;
 
 import java.util.*;
-import java.util.stream.Collectors;
-
-/** Calcule les 13 métriques demandées à partir du ProjectStats. */
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Calcule les 13 métriques demandées à partir du ProjectStats.
+ * Les métriques des méthodes (Q3, Q6, Q12, Q13) viennent de ProjectStats.metrics quand
+ * l'analyse l'a alimenté, sinon de la liste ProjectStats.methods.
+ */
 public class StatisticsService {
 
+    /** Les 13 réponses, qu'elles soient calculées d'un coup (Answers) ou à la demande (LazyAnswers). */
+    public interface Metrics {
+        int nbClasses();                                          // 1
+        int nbLOC();                                              // 2
+        int nbMethods();                                          // 3
+        int nbPackages();                                         // 4
+        double avgMethodsPerClass();                              // 5
+        double avgLocPerMethod();                                 // 6
+        double avgFieldsPerClass();                               // 7
+        List<String> top10pctByMethods();                         // 8
+        List<String> top10pctByFields();                          // 9
+        List<String> intersectionTop10pct();                      // 10
+        List<String> classesMoreThanXMethods();                   // 11
+        Map<String, List<String>> top10pctLongestMethodsPerClass(); // 12
+        int maxParameters();                                      // 13
+    }
+
     /** Conteneur immuable pour toutes les réponses. */
     public record Answers(
             int nbClasses,                        // 1
@@ -25,97 +48,182 @@ public class StatisticsService {
             List<String> classesMoreThanXMethods, // 11
             Map<String, List<String>> top10pctLongestMethodsPerClass, // 12
             int maxParameters                     // 13
-    ) {}
+    ) implements Metrics {}
+
+    /**
+     * Réponses calculées au premier accès puis mémorisées : afficher une seule question
+     * ne coûte que cette question. ProjectStats ne doit plus être modifié ensuite.
+     * Non thread-safe (prévu pour l'EDT).
+     */
+    public static final class LazyAnswers implements Metrics {
+        private final Memo<Double> avgMethods, avgLoc, avgFields;
+        private final Memo<List<String>> topMethods, topFields, inter, moreThanX;
+        private final Memo<Map<String, List<String>>> longest;
+        private final Memo<Integer> maxParams;
+        private final ProjectStats s;
+
+        private LazyAnswers(ProjectStats s, int xThreshold) {
+            this.s = s;
+            avgMethods = new Memo<>(() -> StatisticsService.avgMethodsPerClass(s));
+            avgLoc = new Memo<>(() -> StatisticsService.avgLocPerMethod(s));
+            avgFields = new Memo<>(() -> StatisticsService.avgFieldsPerClass(s));
+            topMethods = new Memo<>(() -> topClasses(s, c -> c.methodCount));
+            topFields = new Memo<>(() -> topClasses(s, c -> c.fieldCount));
+            inter = new Memo<>(() -> intersection(topMethods.get(), topFields.get()));
+            moreThanX = new Memo<>(() -> classesMoreThan(s, xThreshold));
+            longest = new Memo<>(() -> longestPerClass(s));
+            maxParams = new Memo<>(() -> StatisticsService.maxParameters(s));
+        }
+
+        @Override public int nbClasses() { return s.classes.size(); }
+        @Override public int nbLOC() { return s.totalLOC; }
+        @Override public int nbMethods() { return StatisticsService.nbMethods(s); }
+        @Override public int nbPackages() { return s.packages.size(); }
+        @Override public double avgMethodsPerClass() { return avgMethods.get(); }
+        @Override public double avgLocPerMethod() { return avgLoc.get(); }
+        @Override public double avgFieldsPerClass() { return avgFields.get(); }
+        @Override public List<String> top10pctByMethods() { return topMethods.get(); }
+        @Override public List<String> top10pctByFields() { return topFields.get(); }
+        @Override public List<String> intersectionTop10pct() { return inter.get(); }
+        @Override public List<String> classesMoreThanXMethods() { return moreThanX.get(); }
+        @Override public Map<String, List<String>> top10pctLongestMethodsPerClass() { return longest.get(); }
+        @Override public int maxParameters() { return maxParams.get(); }
+    }
+
+    private static final class Memo<T> {
+        private Supplier<T> supplier;
+        private T value;
+
+        Memo(Supplier<T> supplier) { this.supplier = supplier; }
 
-    /** Calcule toutes les métriques. */
+        T get() {
+            if (supplier != null) {
+                value = supplier.get();
+                supplier = null;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Calcule toutes les métriques : une seule passe sur les classes (sommes, deux tas bornés,
+     * filtre Q11) ; les métriques "méthodes" viennent de l'agrégateur rempli pendant l'analyse.
+     */
     public Answers compute(ProjectStats s, int xThreshold) {
         Objects.requireNonNull(s, "ProjectStats manquant");
 
-        int nbClasses  = s.classes.size();          // 1
-        int nbLOC      = s.totalLOC;                // 2
-        int nbMethods  = s.methods.size();          // 3
-        int nbPackages = s.packages.size();         // 4
+        int nbClasses = s.classes.size();
+        int k = TopK.percent(nbClasses, 0.10);
+        TopK<String> topByMethods = new TopK<>(k), topByFields = new TopK<>(k);
+        List<String> moreThanX = new ArrayList<>();
+        long sumMethods = 0, sumFields = 0;
+        for (ClassInfo c : s.classes.values()) {
+            String name = ProjectStats.fullName(c.packageName, c.className);
+            sumMethods += c.methodCount;
+            sumFields += c.fieldCount;
+            topByMethods.offer(name, c.methodCount);                // 8
+            topByFields.offer(name, c.fieldCount);                  // 9
+            if (c.methodCount > xThreshold) moreThanX.add(name);   // 11
+        }
+        Collections.sort(moreThanX);
+        List<String> top8 = List.copyOf(topByMethods.result());
+        List<String> top9 = List.copyOf(topByFields.result());
 
-        double avgMethodsPerClass = nbClasses == 0 ? 0.0 :
-                s.classes.values().stream().mapToInt(c -> c.methodCount).average().orElse(0.0); // 5
+        return new Answers(
+                nbClasses,                                                    // 1
+                s.totalLOC,                                                   // 2
+                nbMethods(s),                                                 // 3
+                s.packages.size(),                                            // 4
+                nbClasses == 0 ? 0.0 : round2((double) sumMethods / nbClasses), // 5
+                avgLocPerMethod(s),                                           // 6
+                nbClasses == 0 ? 0.0 : round2((double) sumFields / nbClasses),  // 7
+                top8,
+                top9,
+                intersection(top8, top9),                                     // 10
+                List.copyOf(moreThanX),
+                longestPerClass(s),                                           // 12
+                maxParameters(s)                                              // 13
+        );
+    }
 
-        double avgLocPerMethod = nbMethods == 0 ? 0.0 :
-                s.methods.stream().mapToInt(m -> m.loc).average().orElse(0.0);                   // 6
+    /** Variante paresseuse : chaque métrique est calculée au premier accès. */
+    public LazyAnswers computeLazy(ProjectStats s, int xThreshold) {
+        Objects.requireNonNull(s, "ProjectStats manquant");
+        return new LazyAnswers(s, xThreshold);
+    }
 
-        double avgFieldsPerClass = nbClasses == 0 ? 0.0 :
-                s.classes.values().stream().mapToInt(c -> c.fieldCount).average().orElse(0.0);  // 7
+    /* Métriques */
 
-        // 8) Top 10% classes par # méthodes
-        List<String> topByMethods = topPercent(
-                s.classes.values().stream()
-                        .sorted(Comparator.comparingInt((ClassInfo c) -> c.methodCount).reversed())
-                        .map(ci -> ProjectStats.fullName(ci.packageName, ci.className))
-                        .toList(),
-                0.10
-        );
+    private static double avgMethodsPerClass(ProjectStats s) {
+        return round2(s.classes.values().stream().mapToInt(c -> c.methodCount).average().orElse(0.0));
+    }
 
-        // 9) Top 10% classes par # attributs
-        List<String> topByFields = topPercent(
-                s.classes.values().stream()
-                        .sorted(Comparator.comparingInt((ClassInfo c) -> c.fieldCount).reversed())
-                        .map(ci -> ProjectStats.fullName(ci.packageName, ci.className))
-                        .toList(),
-                0.10
-        );
+    private static int nbMethods(ProjectStats s) {
+        return s.metrics.hasMethods() ? s.metrics.methodCount() : s.methods.size();
+    }
+
+    private static double avgLocPerMethod(ProjectStats s) {
+        if (s.metrics.hasMethods()) return round2(s.metrics.avgLocPerMethod());
+        return s.methods.isEmpty() ? 0.0 : round2((double) s.methods.locSum() / s.methods.size());
+    }
+
+    private static double avgFieldsPerClass(ProjectStats s) {
+        return round2(s.classes.values().stream().mapToInt(c -> c.fieldCount).average().orElse(0.0));
+    }
+
+    /** Q8 / Q9 : top 10 % des classes selon la clé. */
+    private static List<String> topClasses(ProjectStats s, ToIntFunction<ClassInfo> key) {
+        return topPercent(s.classes.values(), s.classes.size(), key, 0.10).stream()
+                .map(ci -> ProjectStats.fullName(ci.packageName, ci.className))
+                .toList();
+    }
 
-        // 10) Intersection
-        Set<String> inter = new LinkedHashSet<>(topByMethods);
-        inter.retainAll(topByFields);
+    private static List<String> intersection(List<String> a, List<String> b) {
+        Set<String> inter = new LinkedHashSet<>(a);
+        inter.retainAll(new HashSet<>(b));
+        return new ArrayList<>(inter);
+    }
 
-        // 11) Classes avec > X méthodes
-        List<String> moreThanX = s.classes.values().stream()
+    private static List<String> classesMoreThan(ProjectStats s, int xThreshold) {
+        return s.classes.values().stream()
                 .filter(c -> c.methodCount > xThreshold)
                 .map(ci -> ProjectStats.fullName(ci.packageName, ci.className))
                 .sorted()
                 .toList();
+    }
 
-        // 12) Pour chaque classe: top 10% des méthodes par LOC
-        Map<String, List<String>> longestPerClass = new LinkedHashMap<>();
-        Map<String, List<MethodInfo>> byClass = s.methods.stream()
-                .collect(Collectors.groupingBy(mi -> mi.className, LinkedHashMap::new, Collectors.toList()));
-        for (var e : byClass.entrySet()) {
-            List<MethodInfo> sorted = e.getValue().stream()
-                    .sorted(Comparator.comparingInt((MethodInfo m) -> m.loc).reversed())
-                    .toList();
-            int k = Math.max(1, (int) Math.ceil(sorted.size() * 0.10));
-            longestPerClass.put(e.getKey(),
-                    sorted.subList(0, k).stream()
-                            .map(m -> m.methodName + " (" + m.loc + " loc)")
-                            .toList()
-            );
+    /** Q12 : pour chaque classe, top 10 % des méthodes par LOC (colonnes : ids de classe, LOC). */
+    private static Map<String, List<String>> longestPerClass(ProjectStats s) {
+        if (s.metrics.hasMethods()) return s.metrics.longestPerClass();
+        MethodTable t = s.methods;
+        int[] counts = t.countsPerClass();
+        // ids de classe de la SymbolTable, pris dans l'ordre de leur première méthode :
+        // même ordre qu'un groupement LinkedHashMap
+        Map<Integer, TopK<Integer>> tops = new LinkedHashMap<>();
+        for (int i = 0; i < t.size(); i++) {
+            tops.computeIfAbsent(t.classId(i), c -> new TopK<>(TopK.percent(counts[c], 0.10))).offer(i, t.loc(i));
         }
 
-        // 13) Max parameters
-        int maxParams = s.methods.stream().mapToInt(m -> m.parameterCount).max().orElse(0);
+        Map<String, List<String>> longestPerClass = new LinkedHashMap<>();
+        for (var e : tops.entrySet()) {
+            longestPerClass.put(t.className(e.getKey()), e.getValue().result().stream()
+                    .map(i -> t.methodName(i) + " (" + t.loc(i) + " loc)")
+                    .toList());
+        }
+        return longestPerClass;
+    }
 
-        return new Answers(
-                nbClasses,
-                nbLOC,
-                nbMethods,
-                nbPackages,
-                round2(avgMethodsPerClass),
-                round2(avgLocPerMethod),
-                round2(avgFieldsPerClass),
-                topByMethods,
-                topByFields,
-                new ArrayList<>(inter),
-                moreThanX,
-                longestPerClass,
-                maxParams
-        );
+    private static int maxParameters(ProjectStats s) {
+        if (s.metrics.hasMethods()) return s.metrics.maxParameters();
+        return s.methods.maxParameters();
     }
 
     /* Helpers */
 
-    private static List<String> topPercent(List<String> ordered, double p) {
-        if (ordered == null || ordered.isEmpty()) return List.of();
-        int k = Math.max(1, (int) Math.ceil(ordered.size() * p));
-        return ordered.subList(0, k);
+    /** Les ceil(size * p) premiers (au moins 1) par clé décroissante. */
+    private static <T> List<T> topPercent(Iterable<T> items, int size, ToIntFunction<T> key, double p) {
+        if (size == 0) return List.of();
+        return TopK.of(items, key, TopK.percent(size, p));
     }
 
     private static double round2(double v) {
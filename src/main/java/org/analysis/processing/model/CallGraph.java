@@ -4,26 +4,157 @@ import java.util.*;
 
 /**
  * Représente un graphe d'appel (liste d'adjacence).
- * Chaque nœud est une méthode "pkg.Classe#methode".
+ * Chaque nœud est une méthode "pkg.Classe#methode(Param,..)", désignée par son id dans la SymbolTable ;
+ * les nœuds sont numérotés densément dans l'ordre d'apparition, les arêtes sont des int.
+ * asMap() en donne une vue en chaînes, construite à la demande et mise en cache.
+ * Chaque arête porte aussi son nombre de sites d'appel (compteur primitif incrémenté à chaque addEdge),
+ * et le graphe de couplage classe->classe (classGraph()) est agrégé au même moment.
  */
 public class CallGraph {
-    // clé = méthode appelante, valeur = ensemble de méthodes appelées
-    private final Map<String, Set<String>> adj = new LinkedHashMap<>();
+
+    /** Parcours des arêtes en ids de méthode. */
+    public interface EdgeConsumer {
+        void accept(int callerMethod, int calleeMethod);
+    }
+
+    private final SymbolTable symbols;
+
+    // nœud dense <-> id de méthode
+    private int[] nodeMethod = new int[16];
+    private int[] methodNode = new int[0]; // -1 = pas encore un nœud
+    private int nodeCount = 0;
+
+    // successeurs par nœud (ordre d'insertion, sans doublon)
+    private int[][] out = new int[16][];
+    private int[] outSize = new int[16];
+    private final LongIntHashMap callSites = new LongIntHashMap(); // (nœud a, nœud b) -> nb de sites d'appel
+    private long callSiteCount = 0;
+    private final ClassCouplingGraph classGraph = new ClassCouplingGraph();
+
+    private int modCount = 0;
+    private Map<String, Set<String>> view;
+    private int viewModCount = -1;
+    private CallGraphIndex index;
+    private int indexModCount = -1;
+
+    public CallGraph() { this(new SymbolTable()); }
+
+    public CallGraph(SymbolTable symbols) { this.symbols = symbols; }
+
+    public SymbolTable symbols() { return symbols; }
+
+    /** Couplage classe->classe (inter-classes) agrégé pendant la construction. */
+    public ClassCouplingGraph classGraph() { return classGraph; }
 
     public void addEdge(String caller, String callee){
         if(caller == null || callee == null || caller.isBlank() || callee.isBlank()) return;
-        adj.computeIfAbsent(caller, k -> new LinkedHashSet<>()).add(callee);
-        adj.putIfAbsent(callee, new LinkedHashSet<>()); // assure que le callee existe
+        addEdge(symbols.methodOfSignature(caller), symbols.methodOfSignature(callee));
+    }
+
+    /** Déclare une méthode sans arête (nœud isolé tant qu'elle n'appelle rien). */
+    public void addNode(int method) {
+        node(method);
+    }
+
+    /** Un site d'appel caller -> callee : l'arête est créée au premier, les suivants incrémentent son poids. */
+    public void addEdge(int callerMethod, int calleeMethod) {
+        int a = node(callerMethod);
+        int b = node(calleeMethod); // assure que le callee existe
+        callSiteCount++;
+        boolean newPair = callSites.addTo(LongIntHashMap.pack(a, b), 1) == 1;
+        classGraph.addCall(symbols.methodClass(callerMethod), symbols.methodClass(calleeMethod), newPair);
+        if (!newPair) return;
+        if (out[a] == null) out[a] = new int[2];
+        else if (outSize[a] == out[a].length) out[a] = Arrays.copyOf(out[a], outSize[a] * 2);
+        out[a][outSize[a]++] = b;
+        modCount++;
+    }
+
+    private int node(int method) {
+        if (method >= methodNode.length) {
+            int old = methodNode.length;
+            methodNode = Arrays.copyOf(methodNode, Math.max(method + 1, old * 2));
+            Arrays.fill(methodNode, old, methodNode.length, -1);
+        }
+        int n = methodNode[method];
+        if (n >= 0) return n;
+        n = nodeCount++;
+        if (n == nodeMethod.length) {
+            nodeMethod = Arrays.copyOf(nodeMethod, n * 2);
+            out = Arrays.copyOf(out, n * 2);
+            outSize = Arrays.copyOf(outSize, n * 2);
+        }
+        nodeMethod[n] = method;
+        methodNode[method] = n;
+        modCount++;
+        return n;
+    }
+
+    /* ---------- accès en ids ---------- */
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return callSites.size(); }
+
+    /** Nombre total de sites d'appel (somme des poids d'arêtes). */
+    public long callSiteCount() { return callSiteCount; }
+    public int methodAt(int node) { return nodeMethod[node]; }
+
+    /** Nœud de la méthode, -1 si elle n'apparaît pas dans le graphe. */
+    public int nodeOf(int method) { return method < methodNode.length ? methodNode[method] : -1; }
+
+    public int outDegree(int node) { return outSize[node]; }
+    public int target(int node, int k) { return out[node][k]; }
+
+    /** Nombre de sites d'appel de la k-ième arête sortante du nœud. */
+    public int callSitesAt(int node, int k) {
+        return callSites.get(LongIntHashMap.pack(node, out[node][k]), 0);
+    }
+
+    /** Nombre de sites d'appel callerMethod -> calleeMethod (0 si pas d'arête). */
+    public int callSites(int callerMethod, int calleeMethod) {
+        int a = nodeOf(callerMethod), b = nodeOf(calleeMethod);
+        return (a < 0 || b < 0) ? 0 : callSites.get(LongIntHashMap.pack(a, b), 0);
+    }
+
+    /** Arêtes dans l'ordre de asMap() (appelants par ordre d'apparition, puis appelés). */
+    public void forEachEdge(EdgeConsumer consumer) {
+        for (int a = 0; a < nodeCount; a++) {
+            int ma = nodeMethod[a];
+            for (int k = 0; k < outSize[a]; k++) consumer.accept(ma, nodeMethod[out[a][k]]);
+        }
+    }
+
+    /**
+     * Index de requêtes (appelants/appelés en CSR, accessibilité, plus court chemin),
+     * construit au premier appel puis reconstruit seulement après modification du graphe.
+     */
+    public CallGraphIndex index() {
+        if (index == null || indexModCount != modCount) {
+            index = new CallGraphIndex(nodeCount, nodeMethod, methodNode, out, outSize);
+            indexModCount = modCount;
+        }
+        return index;
     }
 
+    /** Vue en chaînes (signature -> signatures appelées), reconstruite seulement après modification. */
     public Map<String, Set<String>> asMap(){
-        return Collections.unmodifiableMap(adj);
+        if (view == null || viewModCount != modCount) {
+            Map<String, Set<String>> adj = new LinkedHashMap<>();
+            for (int a = 0; a < nodeCount; a++) {
+                Set<String> callees = new LinkedHashSet<>();
+                for (int k = 0; k < outSize[a]; k++) callees.add(symbols.signature(nodeMethod[out[a][k]]));
+                adj.put(symbols.signature(nodeMethod[a]), Collections.unmodifiableSet(callees));
+            }
+            view = Collections.unmodifiableMap(adj);
+            viewModCount = modCount;
+        }
+        return view;
     }
 
     @Override
     public String toString(){
         StringBuilder sb = new StringBuilder();
-        adj.forEach((k,v) -> sb.append(k).append(" -> ").append(v).append('\n'));
+        asMap().forEach((k,v) -> sb.append(k).append(" -> ").append(v).append('\n'));
         return sb.toString();
     }
 }
@@ -0,0 +1,170 @@
+package org.analysis.processing.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Index de requêtes sur un CallGraph figé : adjacences directe (appelés) et inverse (appelants)
+ * en CSR (offsets + cibles), construites une fois par CallGraph.index().
+ * Toutes les requêtes prennent et rendent des ids de méthode (SymbolTable).
+ *
+ * Les parcours réutilisent un BitSet, une file et un tableau de parents internes :
+ * pas d'allocation par requête, mais un index ne sert qu'à un thread à la fois et le résultat
+ * d'une requête (BitSet, chemin) n'est valable que jusqu'à la suivante.
+ */
+public final class CallGraphIndex {
+
+    private final int[] nodeMethod;
+    private final int[] methodNode;
+
+    private final int[] outOff, outDst; // nœud -> appelés
+    private final int[] inOff, inSrc;   // nœud -> appelants
+
+    // tampons réutilisés
+    private final BitSet reached = new BitSet();
+    private final int[] queue;
+    private final int[] parent;
+    private int[] path = new int[16];
+
+    CallGraphIndex(int n, int[] nodeMethod, int[] methodNode, int[][] out, int[] outSize) {
+        this.nodeMethod = Arrays.copyOf(nodeMethod, n);
+        this.methodNode = methodNode.clone();
+
+        outOff = new int[n + 1];
+        for (int a = 0; a < n; a++) outOff[a + 1] = outOff[a] + outSize[a];
+        outDst = new int[outOff[n]];
+        inOff = new int[n + 1];
+        for (int a = 0; a < n; a++) {
+            if (outSize[a] > 0) System.arraycopy(out[a], 0, outDst, outOff[a], outSize[a]);
+            for (int k = 0; k < outSize[a]; k++) inOff[out[a][k] + 1]++;
+        }
+        for (int b = 0; b < n; b++) inOff[b + 1] += inOff[b];
+        inSrc = new int[outDst.length];
+        int[] fill = Arrays.copyOf(inOff, n); // appelants rangés par nœud croissant
+        for (int a = 0; a < n; a++) {
+            for (int i = outOff[a]; i < outOff[a + 1]; i++) inSrc[fill[outDst[i]]++] = a;
+        }
+
+        queue = new int[n];
+        parent = new int[n];
+    }
+
+    private int node(int method) {
+        return (method >= 0 && method < methodNode.length) ? methodNode[method] : -1;
+    }
+
+    /* ---------- voisins directs ---------- */
+
+    public int calleeCount(int method) {
+        int a = node(method);
+        return (a < 0) ? 0 : outOff[a + 1] - outOff[a];
+    }
+
+    public int callerCount(int method) {
+        int b = node(method);
+        return (b < 0) ? 0 : inOff[b + 1] - inOff[b];
+    }
+
+    /**
+     * k-ième méthode appelée par 'method' (ordre d'insertion).
+     * IndexOutOfBoundsException si k hors de [0, calleeCount(method)) — toujours le cas pour une méthode hors graphe.
+     */
+    public int callee(int method, int k) {
+        Objects.checkIndex(k, calleeCount(method));
+        return nodeMethod[outDst[outOff[node(method)] + k]];
+    }
+
+    /** k-ième méthode appelant 'method' (par ordre d'apparition des appelants) ; k dans [0, callerCount(method)). */
+    public int caller(int method, int k) {
+        Objects.checkIndex(k, callerCount(method));
+        return nodeMethod[inSrc[inOff[node(method)] + k]];
+    }
+
+    public void calleesOf(int method, IntConsumer action) {
+        int a = node(method);
+        if (a < 0) return;
+        for (int i = outOff[a]; i < outOff[a + 1]; i++) action.accept(nodeMethod[outDst[i]]);
+    }
+
+    public void callersOf(int method, IntConsumer action) {
+        int b = node(method);
+        if (b < 0) return;
+        for (int i = inOff[b]; i < inOff[b + 1]; i++) action.accept(nodeMethod[inSrc[i]]);
+    }
+
+    /* ---------- parcours ---------- */
+
+    /**
+     * Méthodes atteignables depuis 'method' en au plus maxDepth appels (maxDepth < 0 : sans limite),
+     * 'method' exclue sauf si elle est sur un cycle. reverse = true : appelants transitifs.
+     * Le BitSet (indexé par id de méthode) est réutilisé par la requête suivante.
+     */
+    public BitSet reachable(int method, int maxDepth, boolean reverse) {
+        reached.clear();
+        int start = node(method);
+        if (start < 0 || maxDepth == 0) return reached;
+        int[] off = reverse ? inOff : outOff, adj = reverse ? inSrc : outDst;
+
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        for (int depth = 0; head < tail && (maxDepth < 0 || depth < maxDepth); depth++) {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int u = queue[head++];
+                for (int i = off[u]; i < off[u + 1]; i++) {
+                    int v = adj[i], m = nodeMethod[v];
+                    if (reached.get(m)) continue;
+                    reached.set(m);
+                    if (v != start) queue[tail++] = v;
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Plus court chemin d'appels from -> to (BFS sur les appelés).
+     * Renvoie le nombre de méthodes du chemin, extrémités comprises (0 si aucun) ;
+     * les méthodes se lisent ensuite par pathAt(i).
+     */
+    public int shortestPath(int from, int to) {
+        int s = node(from), t = node(to);
+        if (s < 0 || t < 0) return 0;
+        if (s == t) {
+            path[0] = from;
+            return 1;
+        }
+        reached.clear(); // ici indexé par nœud
+        int head = 0, tail = 0;
+        queue[tail++] = s;
+        reached.set(s);
+        while (head < tail) {
+            int u = queue[head++];
+            for (int i = outOff[u]; i < outOff[u + 1]; i++) {
+                int v = outDst[i];
+                if (reached.get(v)) continue;
+                reached.set(v);
+                parent[v] = u;
+                if (v == t) return unwind(s, t);
+                queue[tail++] = v;
+            }
+        }
+        return 0;
+    }
+
+    private int unwind(int s, int t) {
+        int len = 1;
+        for (int v = t; v != s; v = parent[v]) len++;
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        for (int i = len - 1, v = t; i >= 0; i--) {
+            path[i] = nodeMethod[v];
+            if (i > 0) v = parent[v];
+        }
+        return len;
+    }
+
+    /** i-ème méthode du dernier chemin calculé par shortestPath. */
+    public int pathAt(int i) { return path[i]; }
+}
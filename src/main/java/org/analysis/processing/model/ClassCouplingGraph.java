@@ -0,0 +1,53 @@
+package org.analysis.processing.model;
+
+import java.util.Arrays;
+
+/**
+ * Graphe de couplage classe->classe tenu à jour par CallGraph.addEdge pendant le parsing.
+ * Chaque arête (A, B), A != B, porte deux poids primitifs :
+ *  - paires : nombre de paires de méthodes distinctes A#m -> B#n,
+ *  - sites  : nombre de sites d'appel.
+ * Les totaux T sont cumulés au fil de l'eau ; une requête de couplage coûte
+ * O(classes + arêtes de classes), sans repasser sur le graphe de méthodes.
+ */
+public final class ClassCouplingGraph {
+
+    private final LongIntHashMap index = new LongIntHashMap(); // (A, B) -> n° d'arête (ordre d'apparition)
+    private int[] pairs = new int[16], sites = new int[16];
+    private long totalPairs = 0, totalSites = 0;
+
+    /** Un site d'appel de la classe a vers la classe b ; newPair = première fois pour cette paire de méthodes. */
+    void addCall(int a, int b, boolean newPair) {
+        if (a == b) return; // intra-classe ignoré
+        int e = index.get(LongIntHashMap.pack(a, b), -1);
+        if (e < 0) {
+            e = index.size();
+            index.put(LongIntHashMap.pack(a, b), e);
+            if (e == pairs.length) {
+                pairs = Arrays.copyOf(pairs, e * 2);
+                sites = Arrays.copyOf(sites, e * 2);
+            }
+        }
+        sites[e]++;
+        totalSites++;
+        if (newPair) {
+            pairs[e]++;
+            totalPairs++;
+        }
+    }
+
+    public int edgeCount() { return index.size(); }
+    public int source(int e) { return LongIntHashMap.hi(index.keyAt(e)); }
+    public int target(int e) { return LongIntHashMap.lo(index.keyAt(e)); }
+
+    public int pairs(int e) { return pairs[e]; }
+    public int sites(int e) { return sites[e]; }
+    public int weight(int e, boolean callSites) { return callSites ? sites[e] : pairs[e]; }
+
+    /** Arête a -> b, -1 si absente. */
+    public int edge(int a, int b) { return index.get(LongIntHashMap.pack(a, b), -1); }
+
+    public long totalPairs() { return totalPairs; }
+    public long totalSites() { return totalSites; }
+    public long total(boolean callSites) { return callSites ? totalSites : totalPairs; }
+}
@@ -0,0 +1,102 @@
+package org.analysis.processing.model;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long -> int sans boxing (adressage ouvert, sondage linéaire).
+ * Les entrées sont rangées dans l'ordre d'insertion (keyAt/valueAt), ce qui donne
+ * des parcours déterministes. Pas de suppression.
+ */
+public final class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+
+    private int[] table; // index d'entrée + 1 (0 = case vide)
+    private int mask;
+
+    public LongIntHashMap() { this(16); }
+
+    public LongIntHashMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        table = new int[cap];
+        mask = cap - 1;
+        keys = new long[Math.max(4, expected)];
+        values = new int[keys.length];
+    }
+
+    /** Deux ids 32 bits dans une clé 64 bits. */
+    public static long pack(int hi, int lo) {
+        return ((long) hi << 32) | (lo & 0xFFFFFFFFL);
+    }
+
+    public static int hi(long key) { return (int) (key >>> 32); }
+    public static int lo(long key) { return (int) key; }
+
+    public int size() { return size; }
+
+    /** Index de l'entrée (ordre d'insertion), -1 si absente. */
+    public int indexOf(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int e = table[slot];
+            if (e == 0) return -1;
+            if (keys[e - 1] == key) return e - 1;
+        }
+    }
+
+    public int get(long key, int missing) {
+        int i = indexOf(key);
+        return (i < 0) ? missing : values[i];
+    }
+
+    /** Associe value à key ; renvoie l'index de l'entrée. */
+    public int put(long key, int value) {
+        int i = insert(key, value);
+        values[i] = value;
+        return i;
+    }
+
+    /** Ajoute delta à la valeur (0 si absente) ; renvoie la nouvelle valeur. */
+    public int addTo(long key, int delta) {
+        int i = insert(key, 0);
+        return values[i] += delta;
+    }
+
+    public long keyAt(int index) { return keys[index]; }
+    public int valueAt(int index) { return values[index]; }
+
+    /** Trouve ou crée l'entrée (valeur initiale 'init' si créée). */
+    private int insert(long key, int init) {
+        int slot = slot(key);
+        for (; ; slot = (slot + 1) & mask) {
+            int e = table[slot];
+            if (e == 0) break;
+            if (keys[e - 1] == key) return e - 1;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = init;
+        table[slot] = ++size;
+        if (size * 2 > table.length) rehash();
+        return size - 1;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = slot(keys[i]);
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // mélange de Fibonacci
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,116 @@
+package org.analysis.processing.model;
+
+import java.util.*;
+
+/**
+ * Stockage en colonnes des méthodes : ids de classe et de nom de la SymbolTable, nombre de
+ * paramètres et LOC, dans des int[] alloués par blocs (pas de recopie quand la table grandit).
+ * ~16 octets par méthode au lieu d'un MethodInfo et de ses chaînes.
+ * Reste une List&lt;MethodInfo&gt; pour les consommateurs existants (get(i) recrée la vue).
+ */
+public class MethodTable extends AbstractList<MethodInfo> implements RandomAccess {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS; // 4096 méthodes par bloc
+    private static final int MASK = CHUNK - 1;
+
+    private int[][] classIds = new int[0][], nameIds = new int[0][], params = new int[0][], locs = new int[0][];
+    private int size = 0;
+
+    // noms de classe et de méthode : une seule copie, dans la table de symboles de l'analyse
+    private final SymbolTable symbols;
+
+    public MethodTable(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /** MethodInfo construit à la main : la classe est désignée par son FQN. */
+    @Override public boolean add(MethodInfo m) {
+        add(symbols.classOfFqn(m.className), symbols.name(m.methodName), m.parameterCount, m.loc);
+        return true;
+    }
+
+    public void add(int classId, int nameId, int parameterCount, int loc) {
+        int chunk = size >>> CHUNK_BITS, off = size & MASK;
+        if (chunk == classIds.length) grow();
+        classIds[chunk][off] = classId;
+        nameIds[chunk][off] = nameId;
+        params[chunk][off] = parameterCount;
+        locs[chunk][off] = loc;
+        size++;
+        modCount++;
+    }
+
+    private void grow() {
+        int n = classIds.length + 1;
+        classIds = Arrays.copyOf(classIds, n);
+        nameIds = Arrays.copyOf(nameIds, n);
+        params = Arrays.copyOf(params, n);
+        locs = Arrays.copyOf(locs, n);
+        classIds[n - 1] = new int[CHUNK];
+        nameIds[n - 1] = new int[CHUNK];
+        params[n - 1] = new int[CHUNK];
+        locs[n - 1] = new int[CHUNK];
+    }
+
+    @Override public MethodInfo get(int i) {
+        Objects.checkIndex(i, size);
+        return new MethodInfo(className(classId(i)), methodName(i), parameterCount(i), loc(i));
+    }
+
+    @Override public int size() { return size; }
+
+    @Override public void clear() {
+        classIds = new int[0][]; nameIds = new int[0][]; params = new int[0][]; locs = new int[0][];
+        size = 0;
+        modCount++;
+    }
+
+    /* colonnes */
+
+    public int classId(int i) { return classIds[i >>> CHUNK_BITS][i & MASK]; }
+    public int parameterCount(int i) { return params[i >>> CHUNK_BITS][i & MASK]; }
+    public int loc(int i) { return locs[i >>> CHUNK_BITS][i & MASK]; }
+    public String methodName(int i) { return symbols.nameOf(nameIds[i >>> CHUNK_BITS][i & MASK]); }
+
+    /** Ids de classe de la SymbolTable : de 0 à classCount() - 1, classes sans méthode comprises. */
+    public int classCount() { return symbols.classCount(); }
+    public String className(int classId) { return symbols.classFqn(classId); }
+
+    /* balayages de colonnes */
+
+    public long locSum() {
+        long sum = 0;
+        for (int c = 0; c < locs.length; c++) {
+            int[] col = locs[c];
+            int end = chunkEnd(c);
+            for (int j = 0; j < end; j++) sum += col[j];
+        }
+        return sum;
+    }
+
+    public int maxParameters() {
+        int max = 0;
+        for (int c = 0; c < params.length; c++) {
+            int[] col = params[c];
+            int end = chunkEnd(c);
+            for (int j = 0; j < end; j++) max = Math.max(max, col[j]);
+        }
+        return max;
+    }
+
+    /** Nombre de méthodes par id de classe. */
+    public int[] countsPerClass() {
+        int[] counts = new int[classCount()];
+        for (int c = 0; c < classIds.length; c++) {
+            int[] col = classIds[c];
+            int end = chunkEnd(c);
+            for (int j = 0; j < end; j++) counts[col[j]]++;
+        }
+        return counts;
+    }
+
+    private int chunkEnd(int c) {
+        return Math.min(CHUNK, size - (c << CHUNK_BITS));
+    }
+}
@@ -0,0 +1,70 @@
+package org.analysis.processing.model;
+
+import java.util.*;
+
+/**
+ * Métriques "méthodes" (Q3, Q6, Q12, Q13) agrégées au fil de l'analyse, sans garder
+ * la liste des MethodInfo : compteurs et sommes courantes, et pour Q12 les méthodes du
+ * fichier en cours, sélectionnées (top 10 % par classe) à la fin de chaque fichier.
+ * Une classe Java tient dans un seul fichier, la sélection est donc exacte ; si deux
+ * fichiers produisent le même nom de classe (types imbriqués homonymes), la sélection
+ * repart des méthodes déjà retenues et peut différer d'un calcul sur la liste complète.
+ */
+public class MetricsAggregator {
+
+    private int methodCount = 0;
+    private long locSum = 0;
+    private int maxParameters = 0;
+
+    // méthodes du fichier en cours, en attente de sélection
+    private final List<MethodInfo> pending = new ArrayList<>();
+
+    // Q12 : classe -> méthodes retenues (ordre décroissant de LOC) et nombre total de méthodes
+    private final Map<String, List<MethodInfo>> longest = new LinkedHashMap<>();
+    private final Map<String, Integer> perClass = new HashMap<>();
+
+    public void method(MethodInfo m) {
+        methodCount++;
+        locSum += m.loc;
+        maxParameters = Math.max(maxParameters, m.parameterCount);
+        pending.add(m);
+    }
+
+    /** Fin d'une unité de compilation : sélection Q12 pour les classes rencontrées. */
+    public void endFile() {
+        if (pending.isEmpty()) return;
+        Map<String, List<MethodInfo>> byClass = new LinkedHashMap<>();
+        for (MethodInfo m : pending) byClass.computeIfAbsent(m.className, k -> new ArrayList<>()).add(m);
+        pending.clear();
+
+        for (var e : byClass.entrySet()) {
+            String cls = e.getKey();
+            int total = perClass.merge(cls, e.getValue().size(), Integer::sum);
+            TopK<MethodInfo> top = new TopK<>(TopK.percent(total, 0.10));
+            for (MethodInfo m : longest.getOrDefault(cls, List.of())) top.offer(m, m.loc);
+            for (MethodInfo m : e.getValue()) top.offer(m, m.loc);
+            longest.put(cls, top.result());
+        }
+    }
+
+    /** Vrai si des méthodes ont été reçues (sinon on retombe sur ProjectStats.methods). */
+    public boolean hasMethods() { return methodCount > 0; }
+
+    public int methodCount() { return methodCount; }
+
+    public double avgLocPerMethod() { return methodCount == 0 ? 0.0 : (double) locSum / methodCount; }
+
+    public int maxParameters() { return maxParameters; }
+
+    /** Q12 au format de StatisticsService ("nom (n loc)"). */
+    public Map<String, List<String>> longestPerClass() {
+        endFile();
+        Map<String, List<String>> out = new LinkedHashMap<>();
+        for (var e : longest.entrySet()) {
+            out.put(e.getKey(), e.getValue().stream()
+                    .map(m -> m.methodName + " (" + m.loc + " loc)")
+                    .toList());
+        }
+        return out;
+    }
+}
@@ -4,16 +4,42 @@ import java.util.*;
 
 public class ProjectStats {
     public final Map<String, ClassInfo> classes = new LinkedHashMap<>();
-    public final List<MethodInfo> methods = new ArrayList<>();
     public final Set<String> packages = new LinkedHashSet<>();
     public int totalLOC = 0;
 
+    // Symboles canoniques de l'analyse (packages, classes, signatures)
+    public final SymbolTable symbols = new SymbolTable();
+    public final MethodTable methods = new MethodTable(symbols); // en colonnes, vue List<MethodInfo>
+
+    // Métriques des méthodes agrégées au fil de l'analyse ; la liste 'methods' n'est
+    // remplie que si retainMethods (stats construites à la main ; SourceParser le désactive)
+    public final MetricsAggregator metrics = new MetricsAggregator();
+    public boolean retainMethods = true;
+
     // Graphe d’appel
-    public final CallGraph callGraph = new CallGraph();
+    public final CallGraph callGraph = new CallGraph(symbols);
 
     public ClassInfo getOrCreate(String pkg, String cls){
         packages.add(pkg == null ? "" : pkg);
-        return classes.computeIfAbsent(fullName(pkg, cls), k -> new ClassInfo(pkg, cls));
+        return getOrCreate(symbols.cls(pkg, cls));
+    }
+
+    /** Classe déjà résolue en symbole : le FQN canonique sert de clé, sans concaténation. */
+    public ClassInfo getOrCreate(int classId){
+        String pkg = symbols.packageName(symbols.classPackage(classId));
+        return classes.computeIfAbsent(symbols.classFqn(classId),
+                k -> new ClassInfo(pkg, symbols.simpleName(classId)));
+    }
+
+    /** Méthode d'une classe déjà résolue en symbole (visiteurs) : pas de FQN à rechercher. */
+    public void addMethod(int classId, String methodName, int parameterCount, int loc) {
+        metrics.method(new MethodInfo(symbols.classFqn(classId), methodName, parameterCount, loc));
+        if (retainMethods) methods.add(classId, symbols.name(methodName), parameterCount, loc);
+    }
+
+    public void addMethod(MethodInfo m) {
+        metrics.method(m);
+        if (retainMethods) methods.add(m);
     }
 
     public static String fullName(String pkg, String cls){
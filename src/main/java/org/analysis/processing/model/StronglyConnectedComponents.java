@@ -0,0 +1,196 @@
+package org.analysis.processing.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Composantes fortement connexes d'un graphe orienté en CSR (Tarjan itératif : pas de récursion,
+ * donc pas de débordement de pile sur les graphes profonds), en O(sommets + arêtes).
+ *
+ * Les ids de composante suivent un ordre topologique du graphe condensé : toute arête de la
+ * condensation va d'une composante c vers une composante d &gt; c (sources d'abord).
+ * Une composante est un cycle si elle a plusieurs sommets ou une boucle sur elle-même.
+ *
+ * Fabriques : of(CallGraph) (sommets = nœuds du graphe, voir CallGraph.methodAt),
+ * of(ClassCouplingGraph, nbClasses) (sommets = ids de classe), ofPackages (sommets = ids de package).
+ */
+public final class StronglyConnectedComponents {
+
+    private final int[] comp;                 // sommet -> composante
+    private final int count;
+    private final int[] memberOff, members;   // composante -> sommets
+    private final int[] dagOff, dagAdj;       // condensation, arêtes sans doublon
+    private final boolean[] selfLoop;         // composante d'un sommet avec boucle
+
+    public static StronglyConnectedComponents of(int n, int[] off, int[] adj) {
+        return new StronglyConnectedComponents(n, off, adj);
+    }
+
+    /** Sur le graphe de méthodes : sommets = nœuds du CallGraph. */
+    public static StronglyConnectedComponents of(CallGraph g) {
+        int n = g.nodeCount();
+        int[] off = new int[n + 1];
+        for (int a = 0; a < n; a++) off[a + 1] = off[a] + g.outDegree(a);
+        int[] adj = new int[off[n]];
+        for (int a = 0; a < n; a++) {
+            for (int k = 0; k < g.outDegree(a); k++) adj[off[a] + k] = g.target(a, k);
+        }
+        return new StronglyConnectedComponents(n, off, adj);
+    }
+
+    /** Sur le couplage classe->classe : sommets = ids de classe de la SymbolTable. */
+    public static StronglyConnectedComponents of(ClassCouplingGraph g, int classCount) {
+        int m = g.edgeCount();
+        int[] src = new int[m], dst = new int[m];
+        for (int e = 0; e < m; e++) { src[e] = g.source(e); dst[e] = g.target(e); }
+        return fromEdges(classCount, src, dst);
+    }
+
+    /** Sur les packages : une arête P -> Q dès qu'une classe de P appelle une classe de Q. */
+    public static StronglyConnectedComponents ofPackages(ClassCouplingGraph g, SymbolTable symbols) {
+        int m = g.edgeCount();
+        int[] src = new int[m], dst = new int[m];
+        for (int e = 0; e < m; e++) {
+            src[e] = symbols.classPackage(g.source(e));
+            dst[e] = symbols.classPackage(g.target(e));
+        }
+        return fromEdges(symbols.packageCount(), src, dst);
+    }
+
+    /** Liste d'arêtes -> CSR (tri par comptage). */
+    private static StronglyConnectedComponents fromEdges(int n, int[] src, int[] dst) {
+        int[] off = new int[n + 1];
+        for (int s : src) off[s + 1]++;
+        for (int v = 0; v < n; v++) off[v + 1] += off[v];
+        int[] fill = Arrays.copyOf(off, n), adj = new int[src.length];
+        for (int e = 0; e < src.length; e++) adj[fill[src[e]]++] = dst[e];
+        return new StronglyConnectedComponents(n, off, adj);
+    }
+
+    private StronglyConnectedComponents(int n, int[] off, int[] adj) {
+        comp = new int[n];
+        int[] index = new int[n], low = new int[n];
+        Arrays.fill(index, -1);
+        int[] stack = new int[n];             // pile de Tarjan
+        boolean[] onStack = new boolean[n];
+        int[] call = new int[n], edge = new int[n]; // pile d'appels simulée : sommet, prochaine arête
+        int sp = 0, counter = 0, emitted = 0;
+
+        for (int s = 0; s < n; s++) {
+            if (index[s] >= 0) continue;
+            int csp = 0;
+            index[s] = low[s] = counter++;
+            stack[sp++] = s; onStack[s] = true;
+            call[csp++] = s; edge[s] = off[s];
+
+            while (csp > 0) {
+                int v = call[csp - 1];
+                if (edge[v] < off[v + 1]) {
+                    int w = adj[edge[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w; onStack[w] = true;
+                        call[csp++] = w; edge[w] = off[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                csp--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        comp[w] = emitted; // ordre topologique inverse, renuméroté plus bas
+                    } while (w != v);
+                    emitted++;
+                }
+                if (csp > 0) {
+                    int u = call[csp - 1];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+            }
+        }
+        count = emitted;
+        for (int v = 0; v < n; v++) comp[v] = count - 1 - comp[v];
+
+        // membres par composante
+        memberOff = new int[count + 1];
+        for (int v = 0; v < n; v++) memberOff[comp[v] + 1]++;
+        for (int c = 0; c < count; c++) memberOff[c + 1] += memberOff[c];
+        members = new int[n];
+        int[] fill = Arrays.copyOf(memberOff, count);
+        for (int v = 0; v < n; v++) members[fill[comp[v]]++] = v;
+
+        // condensation : deux passes (comptage puis remplissage), doublons écartés par marquage
+        selfLoop = new boolean[count];
+        int[] mark = new int[count];
+        Arrays.fill(mark, -1);
+        dagOff = new int[count + 1];
+        for (int c = 0; c < count; c++) {
+            for (int i = memberOff[c]; i < memberOff[c + 1]; i++) {
+                int v = members[i];
+                for (int k = off[v]; k < off[v + 1]; k++) {
+                    int d = comp[adj[k]];
+                    if (adj[k] == v) selfLoop[c] = true;
+                    if (d != c && mark[d] != c) { mark[d] = c; dagOff[c + 1]++; }
+                }
+            }
+        }
+        for (int c = 0; c < count; c++) dagOff[c + 1] += dagOff[c];
+        dagAdj = new int[dagOff[count]];
+        Arrays.fill(mark, -1);
+        for (int c = 0, pos = 0; c < count; c++) {
+            for (int i = memberOff[c]; i < memberOff[c + 1]; i++) {
+                int v = members[i];
+                for (int k = off[v]; k < off[v + 1]; k++) {
+                    int d = comp[adj[k]];
+                    if (d != c && mark[d] != c) { mark[d] = c; dagAdj[pos++] = d; }
+                }
+            }
+        }
+    }
+
+    /* ---------- composantes ---------- */
+
+    public int count() { return count; }
+    public int component(int vertex) { return comp[vertex]; }
+    public int size(int c) { return memberOff[c + 1] - memberOff[c]; }
+    public int member(int c, int k) { return members[memberOff[c] + k]; }
+
+    /** Vrai si la composante contient un cycle (plusieurs sommets ou boucle). */
+    public boolean isCycle(int c) { return size(c) > 1 || selfLoop[c]; }
+
+    /* ---------- graphe condensé (DAG) ---------- */
+
+    public int successorCount(int c) { return dagOff[c + 1] - dagOff[c]; }
+    public int successor(int c, int k) { return dagAdj[dagOff[c] + k]; }
+
+    /** Composantes dans un ordre topologique (sources d'abord) : ce sont simplement 0..count-1. */
+    public int[] topologicalOrder() {
+        int[] order = new int[count];
+        for (int c = 0; c < count; c++) order[c] = c;
+        return order;
+    }
+
+    /**
+     * Groupes de plusieurs sommets (cycles), libellés par 'label' ; les sommets sans libellé
+     * (label renvoie null) sont omis et les groupes réduits à moins de deux libellés écartés.
+     */
+    public List<List<String>> cycleGroups(IntFunction<String> label) {
+        List<List<String>> groups = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            if (size(c) < 2) continue;
+            List<String> g = new ArrayList<>();
+            for (int k = 0; k < size(c); k++) {
+                String l = label.apply(member(c, k));
+                if (l != null && !g.contains(l)) g.add(l);
+            }
+            if (g.size() >= 2) groups.add(g);
+        }
+        return groups;
+    }
+}
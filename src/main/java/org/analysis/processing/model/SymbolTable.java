@@ -0,0 +1,206 @@
+package org.analysis.processing.model;
+
+import java.util.*;
+
+/**
+ * Table de symboles d'une analyse : packages, classes (FQN), noms simples et méthodes
+ * sont canonicalisés une seule fois et désignés ensuite par des ids entiers.
+ * Les visiteurs et les constructeurs de couplage échangent ces ids au lieu de reconstruire
+ * des chaînes (fullName, sig, clsOf/simple).
+ *
+ * Une méthode est identifiée par (classe, nom, paramètres effacés) : les surcharges restent
+ * distinctes. Les listes de paramètres sont internées par leur texte "String,int" (noms simples
+ * effacés) : deux listes de même texte ont le même id, deux textes différents jamais. Les constructeurs s'appellent INIT ("&lt;init&gt;") dans les deux
+ * parseurs. La signature lisible "fqn#nom(String,int)" n'est rendue qu'à l'affichage.
+ */
+public final class SymbolTable {
+
+    /** Nom des constructeurs (convention JVM, identique pour JDT et Spoon). */
+    public static final String INIT = "<init>";
+
+    /** Paramètres inconnus (signature "fqn#nom" sans parenthèses). */
+    public static final int UNKNOWN_PARAMS = -1;
+
+    // noms simples (classes et méthodes)
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    private final List<String> packages = new ArrayList<>();
+    private final Map<String, Integer> packageIds = new HashMap<>();
+
+    // classes : FQN, package, nom simple
+    private final List<String> classFqn = new ArrayList<>();
+    private int[] classPackage = new int[16], classSimple = new int[16];
+    private final Map<String, Integer> classByFqn = new HashMap<>();
+    private final LongIntHashMap classByPkgSimple = new LongIntHashMap();
+
+    // listes de paramètres internées par texte
+    private final List<String> paramLists = new ArrayList<>();
+    private final Map<String, Integer> paramIds = new HashMap<>();
+
+    // méthodes : classe, nom, paramètres ; signature rendue à la demande
+    private int[] methodClass = new int[16], methodName = new int[16], methodParams = new int[16];
+    private String[] signatures = new String[16];
+    private int methodCount = 0;
+    private final LongIntHashMap selectors = new LongIntHashMap();         // (nom, paramètres) -> sélecteur
+    private final LongIntHashMap methodByClassSelector = new LongIntHashMap();
+
+    /* ---------- noms et packages ---------- */
+
+    public int name(String s) {
+        Integer id = nameIds.get(s);
+        if (id != null) return id;
+        names.add(s);
+        nameIds.put(s, names.size() - 1);
+        return names.size() - 1;
+    }
+
+    public String nameOf(int nameId) { return names.get(nameId); }
+
+    public int pkg(String name) {
+        String p = (name == null) ? "" : name;
+        Integer id = packageIds.get(p);
+        if (id != null) return id;
+        packages.add(p);
+        packageIds.put(p, packages.size() - 1);
+        return packages.size() - 1;
+    }
+
+    public String packageName(int pkgId) { return packages.get(pkgId); }
+    public int packageCount() { return packages.size(); }
+
+    /* ---------- classes ---------- */
+
+    /** Classe déclarée dans un package (le FQN n'est construit qu'à la première rencontre). */
+    public int cls(String pkg, String simpleName) {
+        return cls(pkg(pkg), name(simpleName));
+    }
+
+    public int cls(int pkgId, int simpleId) {
+        long key = LongIntHashMap.pack(pkgId, simpleId);
+        int id = classByPkgSimple.get(key, -1);
+        if (id >= 0) return id;
+        String fqn = ProjectStats.fullName(packages.get(pkgId), names.get(simpleId));
+        Integer known = classByFqn.get(fqn);
+        id = (known != null) ? known : register(fqn, pkgId, simpleId);
+        classByPkgSimple.put(key, id);
+        return id;
+    }
+
+    /** Classe désignée par son FQN (ex : binding JDT, référence Spoon). */
+    public int classOfFqn(String fqn) {
+        Integer id = classByFqn.get(fqn);
+        if (id != null) return id;
+        int d = fqn.lastIndexOf('.');
+        int pkgId = pkg(d >= 0 ? fqn.substring(0, d) : "");
+        int simpleId = name(d >= 0 ? fqn.substring(d + 1) : fqn);
+        int cid = register(fqn, pkgId, simpleId);
+        classByPkgSimple.put(LongIntHashMap.pack(pkgId, simpleId), cid);
+        return cid;
+    }
+
+    private int register(String fqn, int pkgId, int simpleId) {
+        int id = classFqn.size();
+        if (id == classPackage.length) {
+            classPackage = Arrays.copyOf(classPackage, id * 2);
+            classSimple = Arrays.copyOf(classSimple, id * 2);
+        }
+        classFqn.add(fqn);
+        classPackage[id] = pkgId;
+        classSimple[id] = simpleId;
+        classByFqn.put(fqn, id);
+        return id;
+    }
+
+    public int classCount() { return classFqn.size(); }
+    public String classFqn(int cls) { return classFqn.get(cls); }
+    public int classPackage(int cls) { return classPackage[cls]; }
+    public int classSimple(int cls) { return classSimple[cls]; }
+    public String simpleName(int cls) { return names.get(classSimple[cls]); }
+
+    /* ---------- paramètres ---------- */
+
+    /** Id de la liste de paramètres de texte 'text' ("String,int", "" sans paramètre). */
+    public int params(String text) {
+        Integer id = paramIds.get(text);
+        if (id != null) return id;
+        paramLists.add(text);
+        paramIds.put(text, paramLists.size() - 1);
+        return paramLists.size() - 1;
+    }
+
+    /** Id d'une liste de paramètres donnée en noms simples effacés (ex : "List", "int[]"). */
+    public int params(List<String> erasures) {
+        return params(String.join(",", erasures));
+    }
+
+    public String paramList(int paramsId) { return paramLists.get(paramsId); }
+
+    /* ---------- méthodes ---------- */
+
+    /** Méthode de paramètres inconnus (API chaîne "fqn#nom"). */
+    public int method(int cls, String name) {
+        return method(cls, name(name), UNKNOWN_PARAMS);
+    }
+
+    public int method(int cls, int nameId) {
+        return method(cls, nameId, UNKNOWN_PARAMS);
+    }
+
+    public int method(int cls, String name, int paramsId) {
+        return method(cls, name(name), paramsId);
+    }
+
+    /** Méthode (classe, nom, paramètres) : deux recherches long -> int, aucune chaîne construite. */
+    public int method(int cls, int nameId, int paramsId) {
+        long sk = LongIntHashMap.pack(nameId, paramsId);
+        int selector = selectors.get(sk, -1);
+        if (selector < 0) {
+            selector = selectors.size();
+            selectors.put(sk, selector);
+        }
+        long key = LongIntHashMap.pack(cls, selector);
+        int id = methodByClassSelector.get(key, -1);
+        if (id >= 0) return id;
+        id = methodCount++;
+        if (id == methodClass.length) {
+            methodClass = Arrays.copyOf(methodClass, id * 2);
+            methodName = Arrays.copyOf(methodName, id * 2);
+            methodParams = Arrays.copyOf(methodParams, id * 2);
+            signatures = Arrays.copyOf(signatures, id * 2);
+        }
+        methodClass[id] = cls;
+        methodName[id] = nameId;
+        methodParams[id] = paramsId;
+        methodByClassSelector.put(key, id);
+        return id;
+    }
+
+    /** Méthode désignée par sa signature "fqn#methode(String,int)" (sans parenthèses : paramètres inconnus). */
+    public int methodOfSignature(String sig) {
+        int i = sig.indexOf('#');
+        int cls = classOfFqn(i < 0 ? sig : sig.substring(0, i));
+        String rest = (i < 0) ? "" : sig.substring(i + 1);
+        int open = rest.indexOf('(');
+        if (open < 0 || !rest.endsWith(")")) return method(cls, rest);
+        String inside = rest.substring(open + 1, rest.length() - 1);
+        List<String> erasures = inside.isEmpty() ? List.of() : Arrays.asList(inside.split(","));
+        return method(cls, rest.substring(0, open), params(erasures));
+    }
+
+    public int methodCount() { return methodCount; }
+    public int methodClass(int m) { return methodClass[m]; }
+    public int methodName(int m) { return methodName[m]; }
+    public int methodParams(int m) { return methodParams[m]; }
+
+    /** Signature lisible "fqn#nom(String,int)", rendue au premier appel puis mise en cache. */
+    public String signature(int m) {
+        String sig = signatures[m];
+        if (sig == null) {
+            StringBuilder sb = new StringBuilder(classFqn.get(methodClass[m])).append('#').append(names.get(methodName[m]));
+            if (methodParams[m] != UNKNOWN_PARAMS) sb.append('(').append(paramLists.get(methodParams[m])).append(')');
+            signatures[m] = sig = sb.toString();
+        }
+        return sig;
+    }
+}
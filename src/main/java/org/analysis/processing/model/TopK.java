@@ -0,0 +1,56 @@
+package org.analysis.processing.model;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Les k meilleurs éléments par clé décroissante, à égalité dans l'ordre d'arrivée —
+ * le même résultat que le préfixe d'un tri stable, mais par tas borné en O(n log k).
+ */
+public final class TopK<T> {
+
+    private record Ranked<T>(T item, int key, long rank) {}
+
+    private final int k;
+    // tête du tas = le moins bon candidat retenu (plus petite clé, puis arrivé le plus tard)
+    private final PriorityQueue<Ranked<T>> heap;
+    private long rank = 0;
+
+    public TopK(int k) {
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.max(1, k + 1),
+                Comparator.<Ranked<T>>comparingInt(Ranked::key)
+                        .thenComparing(Comparator.<Ranked<T>>comparingLong(Ranked::rank).reversed()));
+    }
+
+    public void offer(T item, int key) {
+        long r = rank++;
+        if (k <= 0) return;
+        if (heap.size() < k) {
+            heap.add(new Ranked<>(item, key, r));
+        } else if (key > heap.peek().key()) { // à égalité, le premier arrivé garde sa place
+            heap.poll();
+            heap.add(new Ranked<>(item, key, r));
+        }
+    }
+
+    /** Éléments retenus, du meilleur au moins bon. */
+    public List<T> result() {
+        List<Ranked<T>> all = new ArrayList<>(heap);
+        all.sort(heap.comparator().reversed());
+        List<T> out = new ArrayList<>(all.size());
+        for (Ranked<T> r : all) out.add(r.item());
+        return out;
+    }
+
+    public static <T> List<T> of(Iterable<T> items, ToIntFunction<T> key, int k) {
+        TopK<T> top = new TopK<>(k);
+        for (T item : items) top.offer(item, key.applyAsInt(item));
+        return top.result();
+    }
+
+    /** Taille d'un "top p %" sur n éléments : ceil(n * p), au moins 1 (0 si n = 0). */
+    public static int percent(int n, double p) {
+        return (n == 0) ? 0 : Math.max(1, (int) Math.ceil(n * p));
+    }
+}
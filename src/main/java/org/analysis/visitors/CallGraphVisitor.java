@@ -1,111 +1,171 @@
 package org.analysis.visitors;
 
 import org.analysis.processing.model.ProjectStats;
+import org.analysis.processing.model.SymbolTable;
 import org.eclipse.jdt.core.dom.*;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Objects;
+import java.util.*;
 
-/** Construit le graphe d’appel INTER-CLASSES (callerClass != calleeClass). */
+/**
+ * Construit le graphe d’appel INTER-CLASSES (callerClass != calleeClass).
+ * Classes et méthodes sont manipulées en ids de la SymbolTable : pas de chaîne construite par appel.
+ * Une méthode = (classe, nom, paramètres effacés) ; les constructeurs s'appellent &lt;init&gt;.
+ * Les appelés sont mémorisés par binding (identité dans le fichier, getKey() sur toute l'analyse) :
+ * un site d'appel déjà vu coûte une recherche dans une table.
+ */
 public class CallGraphVisitor extends ASTVisitor {
 
     private final ProjectStats stats;
+    private final SymbolTable symbols;
     private final PackageVisitor pkg;
+    private final int initName;
 
-    private final Deque<String> classStack = new ArrayDeque<>();
-    private final Deque<String> methodStack = new ArrayDeque<>();
+    // binding -> id de méthode appelée (-1 = non résolu)
+    private final Map<String, Integer> calleeByKey;  // partagé par tous les fichiers d'une analyse
+    private final Map<IMethodBinding, Integer> calleeByBinding = new IdentityHashMap<>();
+
+    // piles de contexte : ids de classe, ids de nom et de paramètres de méthode
+    private int[] classStack = new int[8], methodStack = new int[8], paramStack = new int[8];
+    private int classDepth = 0, methodDepth = 0;
 
     public CallGraphVisitor(ProjectStats stats, PackageVisitor pkg) {
+        this(stats, pkg, new HashMap<>());
+    }
+
+    /** calleeByKey : cache getKey() -> méthode, à partager entre les fichiers d'une même analyse. */
+    public CallGraphVisitor(ProjectStats stats, PackageVisitor pkg, Map<String, Integer> calleeByKey) {
         this.stats = Objects.requireNonNull(stats);
         this.pkg = Objects.requireNonNull(pkg);
+        this.calleeByKey = Objects.requireNonNull(calleeByKey);
+        this.symbols = stats.symbols;
+        this.initName = symbols.name(SymbolTable.INIT);
     }
 
-    private String curClass()  { return classStack.isEmpty() ? null : classStack.peek(); }
-    private String curMethod() { return methodStack.isEmpty() ? null : methodStack.peek(); }
-    private static String sig(String classFqn, String method) {
-        if (classFqn == null || method == null) return null;
-        return classFqn + "#" + method;
+    private int curClass()  { return classDepth == 0 ? -1 : classStack[classDepth - 1]; }
+
+    /** Méthode appelante courante : classe courante # méthode courante (-1 hors méthode ou hors classe). */
+    private int caller() {
+        if (classDepth == 0 || methodDepth == 0) return -1;
+        return symbols.method(curClass(), methodStack[methodDepth - 1], paramStack[methodDepth - 1]);
+    }
+
+    private static int[] push(int[] stack, int depth, int value) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth] = value;
+        return stack;
     }
 
     /* ----- Contexte classe/méthode ----- */
     @Override public boolean visit(TypeDeclaration node) {
-        classStack.push(ProjectStats.fullName(pkg.currentPackage, node.getName().getIdentifier()));
+        int cls = symbols.cls(pkg.currentPackageId, symbols.name(node.getName().getIdentifier()));
+        classStack = push(classStack, classDepth++, cls);
         return super.visit(node);
     }
     @Override public void endVisit(TypeDeclaration node) {
-        if (!classStack.isEmpty()) classStack.pop();
+        if (classDepth > 0) classDepth--;
     }
 
     @Override public boolean visit(MethodDeclaration node) {
-        methodStack.push(node.getName().getIdentifier());
-        String me = sig(curClass(), curMethod());
-        if (me != null) stats.callGraph.addEdge(me, me); // crée le nœud
+        int name = node.isConstructor() ? initName : symbols.name(node.getName().getIdentifier());
+        IMethodBinding mb = node.resolveBinding();
+        paramStack = push(paramStack, methodDepth, mb != null ? paramsOf(mb) : paramsOf(node));
+        methodStack = push(methodStack, methodDepth++, name);
+        int me = caller();
+        if (me >= 0) stats.callGraph.addNode(me);
         return super.visit(node);
     }
     @Override public void endVisit(MethodDeclaration node) {
-        if (!methodStack.isEmpty()) methodStack.pop();
+        if (methodDepth > 0) methodDepth--;
+    }
+
+    /** Ajoute caller -> (classe déclarante de mb)#name si la classe diffère de la classe courante. */
+    private void addCall(int caller, IMethodBinding mb, boolean constructor) {
+        if (mb == null) return;
+        int callee = callee(mb, constructor);
+        if (callee < 0) return;
+        if (symbols.methodClass(callee) == curClass()) return; // only inter-classes
+        stats.callGraph.addEdge(caller, callee);
+    }
+
+    /** Méthode appelée désignée par le binding, via les caches ; -1 si la classe déclarante est inconnue. */
+    private int callee(IMethodBinding mb, boolean constructor) {
+        Integer id = calleeByBinding.get(mb);
+        if (id != null) return id;
+        String key = mb.getKey();
+        if (key != null) id = calleeByKey.get(key);
+        if (id == null) {
+            id = resolve(mb, constructor);
+            if (key != null) calleeByKey.put(key, id);
+        }
+        calleeByBinding.put(mb, id);
+        return id;
+    }
+
+    private int resolve(IMethodBinding mb, boolean constructor) {
+        if (mb.getDeclaringClass() == null) return -1;
+        String calleeClass = mb.getDeclaringClass().getQualifiedName();
+        if (calleeClass == null) return -1;
+        int cls = symbols.classOfFqn(calleeClass);
+        int name = constructor ? initName : symbols.name(mb.getName());
+        return symbols.method(cls, name, paramsOf(mb));
+    }
+
+    /* ----- Paramètres effacés ----- */
+
+    /** Id des paramètres de la méthode (effacements de la déclaration générique). */
+    private int paramsOf(IMethodBinding mb) {
+        StringJoiner text = new StringJoiner(",");
+        for (ITypeBinding t : mb.getMethodDeclaration().getParameterTypes()) text.add(erasure(t));
+        return symbols.params(text.toString());
+    }
+
+    /** Repli sans binding : noms simples lus dans l'AST, arguments génériques retirés. */
+    private int paramsOf(MethodDeclaration node) {
+        List<String> erasures = new ArrayList<>();
+        for (Object o : node.parameters()) {
+            SingleVariableDeclaration p = (SingleVariableDeclaration) o;
+            Type t = p.getType();
+            int dims = p.getExtraDimensions() + (p.isVarargs() ? 1 : 0);
+            if (t.isArrayType()) { dims += ((ArrayType) t).getDimensions(); t = ((ArrayType) t).getElementType(); }
+            if (t.isParameterizedType()) t = ((ParameterizedType) t).getType();
+            String name = t.toString();
+            name = name.substring(name.lastIndexOf('.') + 1);
+            erasures.add(name + "[]".repeat(dims));
+        }
+        return symbols.params(erasures);
+    }
+
+    private static String erasure(ITypeBinding t) {
+        return (t == null) ? "?" : t.getErasure().getName();
     }
 
     /* ----- Appels "classiques" ----- */
     @Override public boolean visit(MethodInvocation node) {
-        String caller = sig(curClass(), curMethod());
-        if (caller == null) return true;
-
-        IMethodBinding mb = node.resolveMethodBinding();
-        if (mb != null && mb.getDeclaringClass() != null) {
-            String calleeClass = mb.getDeclaringClass().getQualifiedName();
-            String callee = sig(calleeClass, mb.getName());
-            if (callee != null && calleeClass != null && !calleeClass.equals(curClass())) {
-                stats.callGraph.addEdge(caller, callee); // only inter-classes
-            }
-        }
+        int caller = caller();
+        if (caller < 0) return true;
+        addCall(caller, node.resolveMethodBinding(), false);
         return super.visit(node);
     }
 
     @Override public boolean visit(SuperMethodInvocation node) {
-        String caller = sig(curClass(), curMethod());
-        if (caller == null) return true;
-
-        IMethodBinding mb = node.resolveMethodBinding();
-        if (mb != null && mb.getDeclaringClass() != null) {
-            String calleeClass = mb.getDeclaringClass().getQualifiedName();
-            String callee = sig(calleeClass, mb.getName());
-            if (callee != null && !calleeClass.equals(curClass())) {
-                stats.callGraph.addEdge(caller, callee);
-            }
-        }
+        int caller = caller();
+        if (caller < 0) return true;
+        addCall(caller, node.resolveMethodBinding(), false);
         return super.visit(node);
     }
 
     /* ----- Constructeurs ----- */
     @Override public boolean visit(ClassInstanceCreation node) {
-        String caller = sig(curClass(), curMethod());
-        if (caller == null) return super.visit(node);
-
-        IMethodBinding mb = node.resolveConstructorBinding();
-        if (mb != null && mb.getDeclaringClass() != null) {
-            String calleeClass = mb.getDeclaringClass().getQualifiedName();
-            String callee = sig(calleeClass, "<init>");
-            if (callee != null && !calleeClass.equals(curClass())) {
-                stats.callGraph.addEdge(caller, callee);
-            }
-        }
+        int caller = caller();
+        if (caller < 0) return super.visit(node);
+        addCall(caller, node.resolveConstructorBinding(), true);
         return super.visit(node);
     }
 
     @Override public boolean visit(ConstructorInvocation node) {
-        String caller = sig(curClass(), curMethod());
-        if (caller == null) return super.visit(node);
-
-        IMethodBinding mb = node.resolveConstructorBinding();
-        if (mb != null && mb.getDeclaringClass() != null) {
-            String calleeClass = mb.getDeclaringClass().getQualifiedName();
-            String callee = sig(calleeClass, "<init>");
-            if (callee != null && !calleeClass.equals(curClass())) {
-                stats.callGraph.addEdge(caller, callee);
-            }
-        }
+        int caller = caller();
+        if (caller < 0) return super.visit(node);
+        addCall(caller, node.resolveConstructorBinding(), true);
         return super.visit(node);
     }
 }
@@ -1,7 +1,6 @@
 package org.analysis.visitors;
 
 import org.eclipse.jdt.core.dom.*;
-import org.analysis.processing.model.MethodInfo;
 import org.analysis.processing.model.ProjectStats;
 
 public class MethodVisitor extends ASTVisitor {
@@ -14,7 +13,6 @@ public class MethodVisitor extends ASTVisitor {
 
     @Override public boolean visit(MethodDeclaration node) {
         String cls = enclosingTypeSimpleName(node);
-        String pkg = pkgVisitor.currentPackage;
 
         int params = node.parameters().size();
 
@@ -27,8 +25,8 @@ public class MethodVisitor extends ASTVisitor {
                 if (!s.isEmpty()) loc++;
             }
         }
-        stats.methods.add(new MethodInfo(ProjectStats.fullName(pkg, cls),
-                node.getName().getIdentifier(), params, loc));
+        int classId = stats.symbols.cls(pkgVisitor.currentPackageId, stats.symbols.name(cls));
+        stats.addMethod(classId, node.getName().getIdentifier(), params, loc);
         return super.visit(node);
     }
 
@@ -7,11 +7,16 @@ import org.analysis.processing.model.ProjectStats;
 public class PackageVisitor extends ASTVisitor {
     private final ProjectStats stats;
     public String currentPackage = "";
+    public int currentPackageId; // symbole de currentPackage
 
-    public PackageVisitor(ProjectStats stats){ this.stats = stats; }
+    public PackageVisitor(ProjectStats stats){
+        this.stats = stats;
+        this.currentPackageId = stats.symbols.pkg(currentPackage);
+    }
 
     @Override public boolean visit(PackageDeclaration node) {
         currentPackage = node.getName().getFullyQualifiedName();
+        currentPackageId = stats.symbols.pkg(currentPackage);
         stats.packages.add(currentPackage);
         return super.visit(node);
     }